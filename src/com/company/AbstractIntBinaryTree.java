@@ -0,0 +1,375 @@
+package com.company;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Двоичное дерево целых чисел, узлы которого хранятся не объектами, а записями
+ * фиксированного размера, адресуемыми индексом (значение, индекс левого и индекс
+ * правого потомка). Способ хранения записей определяют наследники.
+ * Для обхода через SimpleBinaryTreeInterface создаются легковесные
+ * представления узлов (индекс + ссылка на дерево).
+ */
+public abstract class AbstractIntBinaryTree implements SimpleBinaryTreeInterface<Integer> {
+
+    /**
+     * Индекс отсутствующего узла
+     */
+    public static final int NIL = -1;
+
+    protected int root = NIL;
+
+    // запасное хранилище, сохраняемое между загрузками (если включено setSpareStorageEnabled)
+    protected AbstractIntBinaryTree spareStorage = null;
+    private boolean spareStorageEnabled = false;
+
+    /**
+     * Представление узла с индексом index
+     */
+    protected class NodeView implements SimpleBinaryTreeInterface.TreeNode<Integer> {
+        protected final int index;
+
+        protected NodeView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Integer getValue() {
+            return AbstractIntBinaryTree.this.getValue(index);
+        }
+
+        @Override
+        public TreeNode<Integer> getLeft() {
+            return view(getLeftIndex(index));
+        }
+
+        @Override
+        public TreeNode<Integer> getRight() {
+            return view(getRightIndex(index));
+        }
+    }
+
+    public abstract int getValue(int index);
+
+    public abstract int getLeftIndex(int index);
+
+    public abstract int getRightIndex(int index);
+
+    protected abstract void setValue(int index, int value);
+
+    protected abstract void setLeftIndex(int index, int left);
+
+    protected abstract void setRightIndex(int index, int right);
+
+    /**
+     * Добавление нового (пока не связанного с деревом) узла без потомков
+     * @return Индекс узла
+     */
+    protected abstract int addNode(int value);
+
+    /**
+     * Освобождение всех записей (память может быть переиспользована)
+     */
+    protected abstract void resetNodes();
+
+    /**
+     * @return Новое пустое дерево того же типа (хранилище для загрузки)
+     */
+    protected abstract AbstractIntBinaryTree newStorage();
+
+    /**
+     * Обмен записями с деревом other того же типа (корни не меняются)
+     * @param other Дерево, созданное newStorage()
+     */
+    protected abstract void swapStorage(AbstractIntBinaryTree other);
+
+    /**
+     * Освобождение хранилища, которое больше не нужно (по умолчанию его память собирает сборщик мусора)
+     * @param storage Дерево, созданное newStorage()
+     */
+    protected void discardStorage(AbstractIntBinaryTree storage) {
+    }
+
+    /**
+     * Включение/выключение запасного хранилища. Загрузка всегда идет в отдельное хранилище,
+     * которое при успешном разборе обменивается записями с этим деревом. Без запасного
+     * хранилища старые записи после загрузки освобождаются, и дерево занимает память только
+     * под свои записи (вдвое больше - лишь во время загрузки). С запасным хранилищем старые
+     * записи сохраняются и переиспользуются следующей загрузкой (без выделения памяти), но
+     * дерево постоянно занимает память под два набора записей.
+     * @param enabled Сохранять ли запасное хранилище между загрузками
+     */
+    public void setSpareStorageEnabled(boolean enabled) {
+        spareStorageEnabled = enabled;
+        if (!enabled && spareStorage != null) {
+            discardStorage(spareStorage);
+            spareStorage = null;
+        }
+    }
+
+    public boolean isSpareStorageEnabled() {
+        return spareStorageEnabled;
+    }
+
+    protected TreeNode<Integer> view(int index) {
+        return index == NIL ? null : new NodeView(index);
+    }
+
+    @Override
+    public TreeNode<Integer> getRoot() {
+        return view(root);
+    }
+
+    /**
+     * @return Индекс корня (NIL для пустого дерева)
+     */
+    public int getRootIndex() {
+        return root;
+    }
+
+    /**
+     * Курсор обхода по индексам узлов: значения читаются из хранилища без упаковки,
+     * стек (для BY_LEVEL - кольцевая очередь) - массивы int, сохраняемые между вызовами reset().
+     * Порядок, уровни, skipSubtree() и setMaxLevel() - как у TraversalCursor.
+     */
+    public class IntCursor extends AbstractTraversalCursor {
+        private int[] nodes = new int[16];
+        private int current = NIL;
+
+        protected IntCursor(Order order) {
+            reset(order);
+        }
+
+        /**
+         * Начало нового обхода дерева с корня
+         * @param order Порядок обхода
+         * @return Этот курсор
+         */
+        public IntCursor reset(Order order) {
+            start(order);
+            return this;
+        }
+
+        @Override
+        public IntCursor setMaxLevel(int maxLevel) {
+            super.setMaxLevel(maxLevel);
+            return this;
+        }
+
+        @Override
+        boolean storeRoot(int slot) {
+            nodes[slot] = root;
+            return root != NIL;
+        }
+
+        @Override
+        boolean storeChild(int slot, int parentSlot, boolean left) {
+            int parent = parentSlot == CURRENT ? current : nodes[parentSlot];
+            nodes[slot] = left ? getLeftIndex(parent) : getRightIndex(parent);
+            return nodes[slot] != NIL;
+        }
+
+        @Override
+        void takeCurrent(int slot) {
+            current = nodes[slot];
+        }
+
+        @Override
+        void clearCurrent() {
+            current = NIL;
+        }
+
+        @Override
+        void releaseSlot(int slot) {
+        }
+
+        @Override
+        void resizeSlots(int capacity, int head) {
+            int[] newNodes = new int[capacity];
+            int tail = nodes.length - head;
+            System.arraycopy(nodes, head, newNodes, 0, tail);
+            System.arraycopy(nodes, 0, newNodes, tail, head);
+            nodes = newNodes;
+        }
+
+        /**
+         * @return Индекс текущего узла (NIL - если обход не начат или закончен)
+         */
+        public int index() {
+            return current;
+        }
+
+        public int value() {
+            if (current == NIL) {
+                throw new NoSuchElementException();
+            }
+            return getValue(current);
+        }
+    }
+
+    /**
+     * @param order Порядок обхода
+     * @return Курсор, установленный перед первым узлом
+     */
+    public IntCursor intCursor(Order order) {
+        return new IntCursor(order);
+    }
+
+    /**
+     * Обход с посетителем, получающим значения без упаковки
+     * @param order Порядок обхода
+     * @param visitor Посетитель
+     */
+    public void visitInts(Order order, IntVisitor visitor) {
+        IntCursor cursor = new IntCursor(order);
+        while (cursor.next()) {
+            visitor.visit(cursor.value(), cursor.level());
+        }
+    }
+
+    /**
+     * @param order Порядок обхода
+     * @return Итератор значений без упаковки
+     */
+    public PrimitiveIterator.OfInt intIterator(Order order) {
+        IntCursor cursor = new IntCursor(order);
+        return cursor.intIterator(cursor::value);
+    }
+
+    public void clear() {
+        resetNodes();
+        root = NIL;
+    }
+
+    /**
+     * Построение дерева в записях target по событиям парсера (значения приходят без упаковки)
+     */
+    private static class Builder implements BracketNotationHandler.IntHandler {
+        private final AbstractIntBinaryTree target;
+        // индексы узлов на пути от корня до текущего узла
+        private int[] path = new int[16];
+        private final BitSet emptyLeft = new BitSet();
+        private int root = NIL;
+
+        Builder(AbstractIntBinaryTree target) {
+            this.target = target;
+        }
+
+        @Override
+        public void startNode(int value, int depth) {
+            int node = target.addNode(value);
+            if (depth == 0) {
+                root = node;
+            } else {
+                int parent = path[depth - 1];
+                if (target.getLeftIndex(parent) == NIL && !emptyLeft.get(depth - 1)) {
+                    target.setLeftIndex(parent, node);
+                } else {
+                    target.setRightIndex(parent, node);
+                }
+            }
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = node;
+            emptyLeft.clear(depth);
+        }
+
+        @Override
+        public void emptyLeft(int depth) {
+            emptyLeft.set(depth);
+        }
+    }
+
+    /**
+     * Дерево строится в записях отдельного хранилища, которые при успешном разборе
+     * обмениваются с записями этого дерева. При ошибке дерево не меняется.
+     * Старые записи освобождаются или (если включено запасное хранилище) сохраняются
+     * для следующей загрузки.
+     */
+    protected void fromBracketNotation(BracketNotationSource src) throws Exception {
+        AbstractIntBinaryTree target = spareStorage != null ? spareStorage : newStorage();
+        spareStorage = null;
+        try {
+            target.clear();
+            Builder builder = new Builder(target);
+            new BracketNotationParser<>(ValueDecoder.INT).parse(src, builder);
+            swapStorage(target);
+            root = builder.root;
+        } finally {
+            // в target - старые записи (или недостроенное дерево, если разбор не удался)
+            if (spareStorageEnabled) {
+                target.clear();
+                spareStorage = target;
+            } else {
+                discardStorage(target);
+            }
+        }
+    }
+
+    public void fromBracketNotation(String bracketStr) throws Exception {
+        fromBracketNotation(BracketNotationSource.of(bracketStr));
+    }
+
+    /**
+     * @param reader Reader (не закрывается)
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(Reader reader) throws Exception {
+        fromBracketNotation(BracketNotationSource.of(reader));
+    }
+
+    /**
+     * Построение дерева по скобочной нотации из файла, отображенного в память
+     * @param path Путь к файлу
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromMappedFile(Path path) throws Exception {
+        try (BracketNotationSource src = BracketNotationSource.ofMappedFile(path)) {
+            fromBracketNotation(src);
+        }
+    }
+
+    /**
+     * Удаляет из дерева узлы у которых один потомок. Потомки удаленного узла занимают его место
+     * (за один вызов - так же, как SimpleBinaryTree.deleteNodesWithOneDescendant).
+     * Обход итеративный, записи удаленных узлов не освобождаются до clear().
+     */
+    public void deleteNodesWithOneDescendant() {
+        if (root == NIL) {
+            return;
+        }
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            int left = getLeftIndex(node);
+            int right = getRightIndex(node);
+            if (left == NIL && right == NIL) {
+                continue;
+            }
+            if (left == NIL || right == NIL) {
+                int child = left == NIL ? right : left;
+                setValue(node, getValue(child));
+                left = getLeftIndex(child);
+                right = getRightIndex(child);
+                setLeftIndex(node, left);
+                setRightIndex(node, right);
+            }
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (left != NIL) {
+                stack[top++] = left;
+            }
+            if (right != NIL) {
+                stack[top++] = right;
+            }
+        }
+    }
+}
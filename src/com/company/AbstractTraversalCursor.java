@@ -0,0 +1,293 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntSupplier;
+
+/**
+ * Общая часть курсоров обхода в одном из четырех порядков: стек (для BY_LEVEL -
+ * кольцевая очередь) уровней, пропуск поддерева и ограничение глубины.
+ * Сами узлы наследник хранит в своем массиве той же длины (объекты узлов
+ * у TraversalCursor, индексы записей у AbstractIntBinaryTree.IntCursor),
+ * курсор работает только с номерами ячеек этого массива.
+ * Массивы сохраняются между обходами, поэтому после "разогрева" шаг обхода ничего не создает.
+ */
+public abstract class AbstractTraversalCursor {
+
+    /**
+     * Номер "ячейки" текущего узла в storeChild()
+     */
+    static final int CURRENT = -1;
+
+    private SimpleBinaryTreeInterface.Order order;
+    // уровни узлов в стеке (очереди)
+    private int[] levels = new int[16];
+    // для POST_ORDER: добавлены ли в стек потомки узла
+    private boolean[] expanded = new boolean[16];
+    private int top = 0;
+    // начало очереди и количество элементов в ней (BY_LEVEL)
+    private int head = 0;
+    private int count = 0;
+
+    private int currentLevel = -1;
+    // нужно ли на следующем шаге добавить потомков текущего узла
+    private boolean expandCurrent = false;
+    // узлы глубже этого уровня не обходятся
+    private int maxLevel = Integer.MAX_VALUE;
+
+    AbstractTraversalCursor() {
+    }
+
+    /**
+     * Запись корня обхода в ячейку slot
+     * @return false, если дерево пустое
+     */
+    abstract boolean storeRoot(int slot);
+
+    /**
+     * Запись потомка узла из ячейки parentSlot (или текущего узла, если parentSlot == CURRENT) в ячейку slot
+     * @return false, если такого потомка нет
+     */
+    abstract boolean storeChild(int slot, int parentSlot, boolean left);
+
+    /**
+     * Перенос узла из ячейки slot в текущий (ячейка освобождается)
+     */
+    abstract void takeCurrent(int slot);
+
+    /**
+     * Текущего узла нет (обход не начат или закончен)
+     */
+    abstract void clearCurrent();
+
+    /**
+     * Освобождение ячейки (чтобы не удерживать ссылки на узлы предыдущего обхода)
+     */
+    abstract void releaseSlot(int slot);
+
+    /**
+     * Увеличение массива узлов до capacity; элементы кольцевой очереди переносятся
+     * в начало нового массива, начиная с ячейки head (для стека head == 0)
+     */
+    abstract void resizeSlots(int capacity, int head);
+
+    /**
+     * Начало нового обхода (массивы курсора переиспользуются)
+     * @param order Порядок обхода
+     */
+    final void start(SimpleBinaryTreeInterface.Order order) {
+        for (int i = 0; i < top; i++) {
+            releaseSlot(i);
+        }
+        for (; count > 0; count--) {
+            releaseSlot(head);
+            head = (head + 1) & (levels.length - 1);
+        }
+        this.order = order;
+        top = 0;
+        head = 0;
+        count = 0;
+        currentLevel = -1;
+        expandCurrent = false;
+        clearCurrent();
+        if (maxLevel >= 0 && storeRoot(0)) {
+            levels[0] = 0;
+            expanded[0] = false;
+            if (order == SimpleBinaryTreeInterface.Order.BY_LEVEL) {
+                count = 1;
+            } else {
+                top = 1;
+                if (order == SimpleBinaryTreeInterface.Order.IN_ORDER) {
+                    pushLeftSpine();
+                }
+            }
+        }
+    }
+
+    public SimpleBinaryTreeInterface.Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Ограничение глубины обхода (действует, начиная со следующего reset(), и сохраняется между обходами)
+     * @param maxLevel Максимальный уровень обходимых узлов (у корня - 0)
+     * @return Этот курсор
+     */
+    public AbstractTraversalCursor setMaxLevel(int maxLevel) {
+        this.maxLevel = maxLevel;
+        return this;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Пропуск еще не пройденной части поддерева текущего узла: при прямом обходе
+     * и обходе по уровням - всех потомков, при симметричном - правого поддерева.
+     * При обратном обходе поддерево узла уже пройдено, и вызов ничего не меняет.
+     */
+    public void skipSubtree() {
+        expandCurrent = false;
+    }
+
+    private void grow() {
+        int capacity = levels.length * 2;
+        resizeSlots(capacity, head);
+        int[] newLevels = new int[capacity];
+        int tail = levels.length - head;
+        System.arraycopy(levels, head, newLevels, 0, tail);
+        System.arraycopy(levels, 0, newLevels, tail, head);
+        levels = newLevels;
+        head = 0;
+        expanded = Arrays.copyOf(expanded, capacity);
+    }
+
+    private boolean push(int parentSlot, boolean left, int level) {
+        if (level > maxLevel) {
+            return false;
+        }
+        if (top == levels.length) {
+            grow();
+        }
+        if (!storeChild(top, parentSlot, left)) {
+            return false;
+        }
+        levels[top] = level;
+        expanded[top++] = false;
+        return true;
+    }
+
+    /**
+     * Добавление в стек левых потомков узла на вершине стека
+     */
+    private void pushLeftSpine() {
+        while (push(top - 1, true, levels[top - 1] + 1)) {
+        }
+    }
+
+    private void enqueue(boolean left, int level) {
+        if (level > maxLevel) {
+            return;
+        }
+        if (count == levels.length) {
+            grow();
+        }
+        int i = (head + count) & (levels.length - 1);
+        if (storeChild(i, CURRENT, left)) {
+            levels[i] = level;
+            count++;
+        }
+    }
+
+    /**
+     * Переход к следующему узлу
+     * @return false, если обход закончен
+     */
+    public boolean next() {
+        if (expandCurrent) {
+            expandCurrent = false;
+            int level = currentLevel + 1;
+            switch (order) {
+                case PRE_ORDER:
+                    push(CURRENT, false, level);
+                    push(CURRENT, true, level);
+                    break;
+                case IN_ORDER:
+                    if (push(CURRENT, false, level)) {
+                        pushLeftSpine();
+                    }
+                    break;
+                case BY_LEVEL:
+                    enqueue(true, level);
+                    enqueue(false, level);
+                    break;
+                default:
+            }
+        }
+        if (order == SimpleBinaryTreeInterface.Order.BY_LEVEL) {
+            if (count == 0) {
+                return finish();
+            }
+            int slot = head;
+            head = (head + 1) & (levels.length - 1);
+            count--;
+            currentLevel = levels[slot];
+            takeCurrent(slot);
+        } else {
+            if (order == SimpleBinaryTreeInterface.Order.POST_ORDER) {
+                while (top > 0 && !expanded[top - 1]) {
+                    int parent = top - 1;
+                    expanded[parent] = true;
+                    int level = levels[parent] + 1;
+                    push(parent, false, level);
+                    push(parent, true, level);
+                }
+            }
+            if (top == 0) {
+                return finish();
+            }
+            currentLevel = levels[--top];
+            takeCurrent(top);
+        }
+        expandCurrent = true;
+        return true;
+    }
+
+    private boolean finish() {
+        clearCurrent();
+        currentLevel = -1;
+        expandCurrent = false;
+        return false;
+    }
+
+    /**
+     * @return Уровень текущего узла (у корня обхода - 0), -1 - если обход не начат или закончен
+     */
+    public int level() {
+        return currentLevel;
+    }
+
+    /**
+     * Основа итераторов поверх курсора (курсор продвигается итератором)
+     */
+    abstract class CursorIterator {
+        private boolean fetched = false;
+        private boolean hasNext;
+
+        public boolean hasNext() {
+            if (!fetched) {
+                hasNext = AbstractTraversalCursor.this.next();
+                fetched = true;
+            }
+            return hasNext;
+        }
+
+        /**
+         * Переход к следующему элементу (после вызова курсор стоит на нем)
+         */
+        void advance() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            fetched = false;
+        }
+    }
+
+    /**
+     * Итератор значений без упаковки поверх этого курсора
+     * @param value Значение текущего узла курсора
+     * @return Итератор
+     */
+    PrimitiveIterator.OfInt intIterator(IntSupplier value) {
+        class IntValues extends CursorIterator implements PrimitiveIterator.OfInt {
+            @Override
+            public int nextInt() {
+                advance();
+                return value.getAsInt();
+            }
+        }
+        return new IntValues();
+    }
+}
@@ -0,0 +1,172 @@
+package com.company;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Проверка того, что горячие пути не создают объектов: тело проверки выполняется
+ * много раз после "разогрева", и количество байт, выделенных текущим потоком
+ * (com.sun.management.ThreadMXBean), должно быть меньше одного байта на повторение
+ * (для загрузки дерева - не больше заданного количества байт на узел).
+ * Запуск: java com.company.AllocationCheck (при нарушении - исключение и ненулевой код выхода).
+ */
+public final class AllocationCheck {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    // размер дерева в проверках загрузки
+    private static final int NODES = 1023;
+    // размеры объектов при сжатых ссылках: заголовок 12 байт + поля, с выравниванием до 8
+    private static final int SIMPLE_NODE_BYTES = 32;
+    private static final int INTEGER_BYTES = 16;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // результаты проверок накапливаются, чтобы JIT не выбросил их тела
+    private static long sink = 0;
+
+    private AllocationCheck() {
+    }
+
+    /**
+     * @param name Название проверки
+     * @param body Проверяемый код (возвращает контрольное значение)
+     * @throws IllegalStateException Если код создает объекты
+     */
+    static void check(String name, LongSupplier body) {
+        check(name, 1, 0, body);
+    }
+
+    /**
+     * Проверка кода, который за одно повторение обрабатывает units единиц (например, узлов дерева)
+     * и может выделять не больше maxBytesPerUnit байт на единицу (плюс меньше одного байта на единицу
+     * на постоянные расходы повторения)
+     * @param name Название проверки
+     * @param units Количество единиц за одно повторение
+     * @param maxBytesPerUnit Допустимое количество байт на единицу
+     * @param body Проверяемый код (возвращает контрольное значение)
+     * @throws IllegalStateException Если код выделяет больше памяти
+     */
+    static void check(String name, int units, int maxBytesPerUnit, LongSupplier body) {
+        // для проверок с большими повторениями (загрузка дерева) количество повторений уменьшается
+        int iterations = units == 1 ? ITERATIONS : Math.max(ITERATIONS * 10 / units, 1);
+        int warmup = units == 1 ? WARMUP : Math.max(WARMUP * 10 / units, 1);
+        for (int i = 0; i < warmup; i++) {
+            sink += body.getAsLong();
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            sink += body.getAsLong();
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        long total = (long) iterations * units;
+        if (allocated >= total * (maxBytesPerUnit + 1)) {
+            throw new IllegalStateException(String.format("%s: выделено %d байт за %d повторений (%.2f байт на единицу, допустимо %d)",
+                    name, allocated, iterations, (double) allocated / total, maxBytesPerUnit));
+        }
+        System.out.printf("%s: %d байт за %d повторений (%.2f байт на единицу)%n",
+                name, allocated, iterations, (double) allocated / total);
+    }
+
+    /**
+     * ValueDecoder: разбор чисел из символов источника без промежуточных строк и упаковки
+     */
+    static void checkDecoders() {
+        String ints = "1 (-25 (300000, 7), 2147483647)";
+        StringBuilder doubles = new StringBuilder("(3.25 (-0.125, 1e10), 12345.678)");
+        check("ValueDecoder.INT", () -> ValueDecoder.INT.decodeInt(ints, 3, 6)
+                + ValueDecoder.INT.decodeInt(ints, 8, 14) + ValueDecoder.INT.decodeInt(ints, 20, 30));
+        check("ValueDecoder.LONG", () -> ValueDecoder.LONG.decodeLong(ints, 8, 14)
+                + ValueDecoder.LONG.decodeLong(ints, 20, 30));
+        check("ValueDecoder.DOUBLE", () -> (long) (ValueDecoder.DOUBLE.decodeDouble(doubles, 1, 5)
+                + ValueDecoder.DOUBLE.decodeDouble(doubles, 7, 13)
+                + ValueDecoder.DOUBLE.decodeDouble(doubles, 15, 19)
+                + ValueDecoder.DOUBLE.decodeDouble(doubles, 22, 31)));
+    }
+
+    /**
+     * TraversalCursor: после первого обхода массивы курсора переиспользуются, шаг обхода ничего не создает
+     */
+    static void checkCursor() {
+        SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+        try {
+            tree.fromBracketNotation("1 (2 (4 (8, 9), 5 (10, 11)), 3 (6 (12, 13), 7 (14 (, 16), 15)))");
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        for (SimpleBinaryTreeInterface.Order order : SimpleBinaryTreeInterface.Order.values()) {
+            TraversalCursor<Integer> cursor = tree.cursor(order);
+            check("TraversalCursor " + order, () -> {
+                long sum = 0;
+                cursor.reset(tree.getRoot());
+                while (cursor.next()) {
+                    sum += cursor.value() * (cursor.level() + 1);
+                }
+                return sum;
+            });
+        }
+    }
+
+    /**
+     * Повторная загрузка одной и той же строки: разбор через BracketNotationParser
+     * (scanValue/readValue/readIntValue) целиком, а не только декодеры
+     */
+    static void checkParse() {
+        // сбалансированное дерево из 1023 узлов (глубина 9 - массивы глубины парсера не растут),
+        // значения вне кэша Integer.valueOf
+        StringBuilder sb = new StringBuilder();
+        appendBalanced(sb, 0, NODES);
+        String s = sb.toString();
+
+        // IntBinaryTree: значения передаются без упаковки (IntHandler), записи переиспользуются
+        // (запасное хранилище включено)
+        IntBinaryTree intTree = new IntBinaryTree();
+        intTree.setSpareStorageEnabled(true);
+        check("IntBinaryTree.fromBracketNotation", NODES, 0, () -> {
+            reload(intTree, s);
+            return intTree.getRootIndex();
+        });
+
+        // SimpleBinaryTree: на узел - только объект узла и Integer
+        SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+        check("SimpleBinaryTree.fromBracketNotation", NODES, SIMPLE_NODE_BYTES + INTEGER_BYTES, () -> {
+            reload(tree, s);
+            return tree.getRoot().getValue();
+        });
+    }
+
+    private static void appendBalanced(StringBuilder sb, int i, int n) {
+        sb.append(1000 + i);
+        int left = 2 * i + 1;
+        if (left < n) {
+            sb.append(" (");
+            appendBalanced(sb, left, n);
+            if (left + 1 < n) {
+                sb.append(", ");
+                appendBalanced(sb, left + 1, n);
+            }
+            sb.append(')');
+        }
+    }
+
+    private static void reload(SimpleBinaryTreeInterface<Integer> tree, String s) {
+        try {
+            if (tree instanceof AbstractIntBinaryTree) {
+                ((AbstractIntBinaryTree) tree).fromBracketNotation(s);
+            } else {
+                ((SimpleBinaryTree<Integer>) tree).fromBracketNotation(s);
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static void main(String[] args) {
+        checkDecoders();
+        checkParse();
+        checkCursor();
+        System.out.println("OK (" + sink + ")");
+    }
+}
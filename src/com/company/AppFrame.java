@@ -70,7 +70,7 @@ public class AppFrame extends JFrame{
          */
         createTreeButton.addActionListener(actionEvent -> {
             try {
-                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(s -> Integer.parseInt(s));
+                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
                 tree.fromBracketNotation(textFieldBracketNotationTree.getText());
                 this.tree = tree;
                 repaintTree();
@@ -0,0 +1,296 @@
+package com.company;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Двоичное дерево, в узлах которого хранятся размер поддерева, его высота и
+ * агрегат (моноид) по значениям поддерева. Запросы по поддереву выполняются за O(1).
+ * Изменение узла через setValue/setLeft/setRight обновляет аннотации на пути к корню
+ * (O(глубины)), загрузка и deleteNodesWithOneDescendant пересчитывают их одним проходом (O(n)).
+ * Прямое присваивание полей left/right/value узла аннотации не обновляет.
+ *
+ * @param <T> Тип значений в узлах
+ * @param <A> Тип агрегата
+ */
+public class AugmentedBinaryTree<T, A> extends SimpleBinaryTree<T> {
+
+    /**
+     * Моноид: ассоциативная операция combine с нейтральным элементом identity
+     * и отображение значения узла в агрегат
+     */
+    public interface Monoid<T, A> {
+        A identity();
+
+        A lift(T value);
+
+        A combine(A a, A b);
+
+        static <T, A> Monoid<T, A> of(A identity, Function<T, A> lift, BinaryOperator<A> combine) {
+            return new Monoid<T, A>() {
+                @Override
+                public A identity() {
+                    return identity;
+                }
+
+                @Override
+                public A lift(T value) {
+                    return lift.apply(value);
+                }
+
+                @Override
+                public A combine(A a, A b) {
+                    return combine.apply(a, b);
+                }
+            };
+        }
+
+        /**
+         * @return Минимум (для пустого поддерева - null)
+         */
+        static <T> Monoid<T, T> min(Comparator<? super T> comparator) {
+            return of(null, v -> v, (a, b) -> a == null ? b : b == null ? a : comparator.compare(a, b) <= 0 ? a : b);
+        }
+
+        /**
+         * @return Максимум (для пустого поддерева - null)
+         */
+        static <T> Monoid<T, T> max(Comparator<? super T> comparator) {
+            return of(null, v -> v, (a, b) -> a == null ? b : b == null ? a : comparator.compare(a, b) >= 0 ? a : b);
+        }
+
+        /**
+         * @return Сумма значений как long
+         */
+        static <T extends Number> Monoid<T, Long> sum() {
+            return of(0L, v -> v == null ? 0L : v.longValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Узел с аннотациями поддерева и ссылкой на родителя
+     */
+    protected class AugmentedTreeNode extends SimpleTreeNode implements SimpleBinaryTreeInterface.SizedTreeNode<T> {
+        private AugmentedTreeNode parent = null;
+        private int size = 1;
+        private int height = 1;
+        private A aggregate;
+
+        public AugmentedTreeNode(T value) {
+            super(value);
+            this.aggregate = monoid.lift(value);
+        }
+
+        @Override
+        public long getSubtreeSize() {
+            return size;
+        }
+
+        /**
+         * Пересчет аннотаций узла по потомкам
+         * @return Изменились ли аннотации
+         */
+        private boolean recompute() {
+            AugmentedTreeNode l = augmented(left);
+            AugmentedTreeNode r = augmented(right);
+            int newSize = 1 + (l == null ? 0 : l.size) + (r == null ? 0 : r.size);
+            int newHeight = 1 + Math.max(l == null ? 0 : l.height, r == null ? 0 : r.height);
+            A newAggregate = monoid.lift(value);
+            if (l != null) {
+                newAggregate = monoid.combine(l.aggregate, newAggregate);
+            }
+            if (r != null) {
+                newAggregate = monoid.combine(newAggregate, r.aggregate);
+            }
+            boolean changed = newSize != size || newHeight != height || !Objects.equals(newAggregate, aggregate);
+            size = newSize;
+            height = newHeight;
+            aggregate = newAggregate;
+            return changed;
+        }
+
+        /**
+         * Обновление аннотаций от этого узла вверх, пока они меняются
+         */
+        private void fixUp() {
+            if (batch) {
+                return;
+            }
+            for (AugmentedTreeNode node = this; node != null && node.recompute(); node = node.parent) {
+            }
+        }
+
+        @Override
+        public void setValue(T value) {
+            super.setValue(value);
+            fixUp();
+        }
+
+        @Override
+        public void setLeft(SimpleTreeNode left) {
+            super.setLeft(left);
+            if (left != null) {
+                augmented(left).parent = this;
+            }
+            fixUp();
+        }
+
+        @Override
+        public void setRight(SimpleTreeNode right) {
+            super.setRight(right);
+            if (right != null) {
+                augmented(right).parent = this;
+            }
+            fixUp();
+        }
+    }
+
+    private final Monoid<T, A> monoid;
+    // на время массовых изменений обновление аннотаций откладывается до общего пересчета
+    private boolean batch = false;
+
+    public AugmentedBinaryTree(ValueDecoder<T> valueDecoder, Function<T, String> toStrFunc, Monoid<T, A> monoid) {
+        super(valueDecoder, toStrFunc);
+        this.monoid = monoid;
+    }
+
+    public AugmentedBinaryTree(ValueDecoder<T> valueDecoder, Monoid<T, A> monoid) {
+        super(valueDecoder);
+        this.monoid = monoid;
+    }
+
+    public AugmentedBinaryTree(Function<String, T> fromStrFunc, Monoid<T, A> monoid) {
+        super(fromStrFunc);
+        this.monoid = monoid;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AugmentedTreeNode augmented(TreeNode<T> node) {
+        return (AugmentedTreeNode) node;
+    }
+
+    @Override
+    protected SimpleTreeNode newNode(T value) {
+        return new AugmentedTreeNode(value);
+    }
+
+    /**
+     * Пересчет аннотаций (и ссылок на родителей) всего дерева за один итеративный обход
+     */
+    protected void recomputeAll() {
+        if (root == null) {
+            return;
+        }
+        augmented(root).parent = null;
+        ArrayDeque<AugmentedTreeNode> stack = new ArrayDeque<>();
+        ArrayDeque<AugmentedTreeNode> order = new ArrayDeque<>();
+        stack.push(augmented(root));
+        while (!stack.isEmpty()) {
+            AugmentedTreeNode node = stack.pop();
+            order.push(node);
+            if (node.left != null) {
+                augmented(node.left).parent = node;
+                stack.push(augmented(node.left));
+            }
+            if (node.right != null) {
+                augmented(node.right).parent = node;
+                stack.push(augmented(node.right));
+            }
+        }
+        // потомки извлекаются раньше родителей
+        while (!order.isEmpty()) {
+            order.pop().recompute();
+        }
+    }
+
+    @Override
+    protected void fromBracketNotation(BracketNotationSource src) throws Exception {
+        super.fromBracketNotation(src);
+        recomputeAll();
+    }
+
+    /**
+     * Агрегату нужны все значения, поэтому отложенное декодирование не имеет смысла -
+     * дерево загружается обычным образом
+     */
+    @Override
+    public void fromBracketNotationLazy(CharSequence bracketStr) throws Exception {
+        fromBracketNotation(BracketNotationSource.of(bracketStr));
+    }
+
+    @Override
+    public void fromBracketNotationParallel(String bracketStr, ForkJoinPool pool, int threshold) throws Exception {
+        super.fromBracketNotationParallel(bracketStr, pool, threshold);
+        recomputeAll();
+    }
+
+    @Override
+    public void copyFrom(SimpleBinaryTreeInterface<T> other) {
+        super.copyFrom(other);
+        recomputeAll();
+    }
+
+    @Override
+    public void deleteNodesWithOneDescendant(SimpleBinaryTree<T> tree) {
+        if (tree != this) {
+            super.deleteNodesWithOneDescendant(tree);
+            return;
+        }
+        batch = true;
+        try {
+            super.deleteNodesWithOneDescendant(tree);
+        } finally {
+            batch = false;
+            recomputeAll();
+        }
+    }
+
+
+    /**
+     * @param node Узел этого дерева (null - пустое поддерево)
+     * @return Количество узлов в поддереве
+     */
+    public int getSize(TreeNode<T> node) {
+        return node == null ? 0 : augmented(node).size;
+    }
+
+    /**
+     * @param node Узел этого дерева (null - пустое поддерево)
+     * @return Высота поддерева (у листа - 1, у пустого поддерева - 0)
+     */
+    public int getHeight(TreeNode<T> node) {
+        return node == null ? 0 : augmented(node).height;
+    }
+
+    /**
+     * @param node Узел этого дерева (null - пустое поддерево)
+     * @return Агрегат значений поддерева
+     */
+    public A getAggregate(TreeNode<T> node) {
+        return node == null ? monoid.identity() : augmented(node).aggregate;
+    }
+
+    /**
+     * @param node Узел этого дерева
+     * @return Родитель узла (null - для корня)
+     */
+    public TreeNode<T> getParent(TreeNode<T> node) {
+        return augmented(node).parent;
+    }
+
+    public int getSize() {
+        return getSize(root);
+    }
+
+    public int getHeight() {
+        return getHeight(root);
+    }
+
+    public A getAggregate() {
+        return getAggregate(root);
+    }
+}
@@ -0,0 +1,662 @@
+package com.company;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Замеры производительности загрузки и обхода деревьев. Каждый замер выполняется
+ * несколько раз после "разогрева" (в пределах бюджета времени), печатается лучшее время.
+ * Запуск: java -Xmx2g com.company.Benchmark [раздел ...] (без аргументов - все разделы).
+ * Максимальный размер деревьев задается свойством benchmark.maxNodes (по умолчанию 10^7).
+ * Разделы:
+ * parse - рекурсивный и итеративный разбор вырожденных и сбалансированных деревьев;
+ * mapped - скорость загрузки (МБ/с) из файла, отображенного в память, и из строки;
+ * parallel - ускорение параллельного разбора на 1..N потоках (N - количество процессоров);
+ * lazy - время загрузки и занимаемая память при отложенном и обычном декодировании значений;
+ * int - байты на узел и скорость обхода IntBinaryTree и SimpleBinaryTree&lt;Integer&gt;;
+ * implicit - обходы в ширину и симметричный у неявного (ImplicitBinaryTree) и связного дерева;
+ * arena - выделение памяти и частота сборок мусора при циклах загрузка/clear() с пулом узлов и без него;
+ * augmented - стоимость поддержки аннотаций AugmentedBinaryTree при изменениях дерева.
+ */
+public final class Benchmark {
+
+    private static final String[] SECTIONS = {"parse", "mapped", "parallel", "lazy", "int", "implicit", "arena", "augmented"};
+
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+    private static final long BUDGET_NANOS = 2_000_000_000L;
+
+    private static final int MAX_NODES = Integer.getInteger("benchmark.maxNodes", 10_000_000);
+
+    // результаты замеров накапливаются, чтобы JIT не выбросил их тела
+    private static long sink = 0;
+
+    private Benchmark() {
+    }
+
+    /**
+     * Замеряемый код (возвращает контрольное значение)
+     */
+    @FunctionalInterface
+    interface Body {
+        long run() throws Exception;
+    }
+
+    /**
+     * Код, строящий объект (для измерения занимаемой памяти)
+     */
+    @FunctionalInterface
+    interface Builder {
+        Object build() throws Exception;
+    }
+
+    /**
+     * @param body Замеряемый код
+     * @return Лучшее время одного выполнения в наносекундах
+     * @throws Exception Ошибка замеряемого кода
+     */
+    static long bestNanos(Body body) throws Exception {
+        return bestNanos(() -> 0, body);
+    }
+
+    /**
+     * @param setup Подготовка перед каждым выполнением (не замеряется)
+     * @param body Замеряемый код
+     * @return Лучшее время одного выполнения в наносекундах
+     * @throws Exception Ошибка подготовки или замеряемого кода
+     */
+    static long bestNanos(Body setup, Body body) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < WARMUP && System.nanoTime() - start < BUDGET_NANOS; i++) {
+            sink += setup.run();
+            sink += body.run();
+        }
+        long best = Long.MAX_VALUE;
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS && (i == 0 || System.nanoTime() - start < BUDGET_NANOS); i++) {
+            sink += setup.run();
+            long t = System.nanoTime();
+            sink += body.run();
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        return best;
+    }
+
+    /**
+     * То же, что bestNanos(), но переполнение стека (у рекурсивных алгоритмов) не считается ошибкой
+     * @return Время в виде строки (в миллисекундах) или "StackOverflowError"
+     */
+    static String bestMillis(Body body) throws Exception {
+        try {
+            return String.format("%10.2f мс", bestNanos(body) / 1e6);
+        } catch (StackOverflowError ex) {
+            return String.format("%13s", "StackOverflowError");
+        }
+    }
+
+    /**
+     * @return Занятая часть кучи после сборки мусора
+     */
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * @param body Код, строящий объект
+     * @return Объем кучи, занимаемый построенным объектом (приблизительно)
+     */
+    static long retainedBytes(Builder body) throws Exception {
+        long before = usedHeap();
+        Object result = body.build();
+        long after = usedHeap();
+        Reference.reachabilityFence(result);
+        return after - before;
+    }
+
+    /**
+     * @return Размеры деревьев 10^3, 10^4, ... (не больше benchmark.maxNodes)
+     */
+    static int[] sizes() {
+        int[] sizes = new int[0];
+        for (long n = 1000; n <= MAX_NODES; n *= 10) {
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+            sizes[sizes.length - 1] = (int) n;
+        }
+        return sizes;
+    }
+
+    /**
+     * @param n Количество узлов
+     * @return Вырожденное дерево (у каждого узла только левый потомок): "0 (1 (2 (...)))"
+     */
+    static String skewedTree(int n) {
+        StringBuilder sb = new StringBuilder(n * 12);
+        for (int i = 0; i < n; i++) {
+            sb.append(i);
+            if (i < n - 1) {
+                sb.append(" (");
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param n Количество узлов
+     * @return Сбалансированное дерево с узлами 0..n-1 в порядке обхода в ширину
+     */
+    static String balancedTree(int n) {
+        StringBuilder sb = new StringBuilder(n * 12);
+        appendBalanced(sb, 0, n);
+        return sb.toString();
+    }
+
+    private static void appendBalanced(StringBuilder sb, int i, int n) {
+        // глубина рекурсии - log2(n)
+        sb.append(i);
+        int left = 2 * i + 1;
+        if (left < n) {
+            sb.append(" (");
+            appendBalanced(sb, left, n);
+            if (left + 1 < n) {
+                sb.append(", ");
+                appendBalanced(sb, left + 1, n);
+            }
+            sb.append(')');
+        }
+    }
+
+    /**
+     * @param n Количество узлов сбалансированного дерева
+     * @return Сбалансированное дерево, в котором над каждым узлом i вставлен узел n + i
+     * с единственным (левым) потомком - всего 2n узлов
+     */
+    static String oneChildTree(int n) {
+        StringBuilder sb = new StringBuilder(n * 24);
+        appendOneChild(sb, 0, n);
+        return sb.toString();
+    }
+
+    private static void appendOneChild(StringBuilder sb, int i, int n) {
+        sb.append(n + i).append(" (").append(i);
+        int left = 2 * i + 1;
+        if (left < n) {
+            sb.append(" (");
+            appendOneChild(sb, left, n);
+            if (left + 1 < n) {
+                sb.append(", ");
+                appendOneChild(sb, left + 1, n);
+            }
+            sb.append(')');
+        }
+        sb.append(')');
+    }
+
+    /**
+     * Прежний рекурсивный разбор SimpleBinaryTree (один вызов на уровень дерева,
+     * значения - через substring и функцию конвертации) - для сравнения с итеративным
+     */
+    private static final class RecursiveParser {
+        private final SimpleBinaryTree<Integer> tree;
+        private final String s;
+        private int index = 0;
+
+        private RecursiveParser(SimpleBinaryTree<Integer> tree, String s) {
+            this.tree = tree;
+            this.s = s;
+        }
+
+        static void parse(SimpleBinaryTree<Integer> tree, String s) throws Exception {
+            RecursiveParser parser = new RecursiveParser(tree, s);
+            SimpleBinaryTree<Integer>.SimpleTreeNode root = parser.fromBracketStr();
+            if (parser.index < s.length()) {
+                throw new Exception(String.format("Ожидался конец строки [%d]", parser.index));
+            }
+            tree.root = root;
+        }
+
+        private void skipSpaces() {
+            while (index < s.length() && Character.isWhitespace(s.charAt(index))) {
+                index++;
+            }
+        }
+
+        private Integer readValue() {
+            skipSpaces();
+            int from = index;
+            while (index < s.length() && !Character.isWhitespace(s.charAt(index)) && "(),".indexOf(s.charAt(index)) < 0) {
+                index++;
+            }
+            Integer value = Integer.parseInt(s.substring(from, index).trim());
+            skipSpaces();
+            return value;
+        }
+
+        private SimpleBinaryTree<Integer>.SimpleTreeNode fromBracketStr() throws Exception {
+            SimpleBinaryTree<Integer>.SimpleTreeNode node = tree.new SimpleTreeNode(readValue());
+            if (index < s.length() && s.charAt(index) == '(') {
+                index++;
+                skipSpaces();
+                if (s.charAt(index) != ',') {
+                    node.left = fromBracketStr();
+                    skipSpaces();
+                }
+                if (s.charAt(index) == ',') {
+                    index++;
+                    skipSpaces();
+                }
+                if (s.charAt(index) != ')') {
+                    node.right = fromBracketStr();
+                    skipSpaces();
+                }
+                if (s.charAt(index) != ')') {
+                    throw new Exception(String.format("Ожидалось ')' [%d]", index));
+                }
+                index++;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Рекурсивный и итеративный (BracketNotationParser) разбор в SimpleBinaryTree&lt;Integer&gt;
+     * с одной и той же функцией конвертации Integer::parseInt
+     */
+    static void parse() throws Exception {
+        System.out.println("== parse: рекурсивный и итеративный разбор");
+        for (int n : sizes()) {
+            for (boolean skewed : new boolean[]{true, false}) {
+                String s = skewed ? skewedTree(n) : balancedTree(n);
+                String recursive = bestMillis(() -> {
+                    SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(Integer::parseInt);
+                    RecursiveParser.parse(tree, s);
+                    return tree.getRoot().getValue();
+                });
+                long iterative = bestNanos(() -> {
+                    SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(Integer::parseInt);
+                    tree.fromBracketNotation(s);
+                    return tree.getRoot().getValue();
+                });
+                System.out.printf("%-14s %,12d узлов: рекурсивный %s, итеративный %10.2f мс (%.1f нс/узел)%n",
+                        skewed ? "вырожденное" : "сбалансированное", n, recursive, iterative / 1e6, (double) iterative / n);
+            }
+        }
+    }
+
+    /**
+     * Загрузка сбалансированного дерева в SimpleBinaryTree&lt;Integer&gt; (ValueDecoder.INT):
+     * fromMappedFile, разбор уже прочитанной строки и чтение файла в строку вместе с разбором
+     */
+    static void mapped() throws Exception {
+        System.out.println("== mapped: загрузка из файла, отображенного в память, и из строки");
+        int n = Math.min(MAX_NODES, 10_000_000);
+        String s = balancedTree(n);
+        Path file = Files.createTempFile("bracket-benchmark", ".txt");
+        try {
+            Files.writeString(file, s, StandardCharsets.US_ASCII);
+            double mb = Files.size(file) / (1024.0 * 1024.0);
+            long mappedNanos = bestNanos(() -> {
+                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+                tree.fromMappedFile(file);
+                return tree.getRoot().getValue();
+            });
+            long stringNanos = bestNanos(() -> {
+                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+                tree.fromBracketNotation(s);
+                return tree.getRoot().getValue();
+            });
+            long readStringNanos = bestNanos(() -> {
+                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+                tree.fromBracketNotation(Files.readString(file, StandardCharsets.US_ASCII));
+                return tree.getRoot().getValue();
+            });
+            System.out.printf("%,d узлов, %.1f МБ: отображение в память %.1f МБ/с, строка %.1f МБ/с, " +
+                            "чтение в строку и разбор %.1f МБ/с%n",
+                    n, mb, mb * 1e9 / mappedNanos, mb * 1e9 / stringNanos, mb * 1e9 / readStringNanos);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * fromBracketNotationParallel в пулах из 1..N потоков против последовательного fromBracketNotation
+     */
+    static void parallel() throws Exception {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        System.out.printf("== parallel: ускорение параллельного разбора (процессоров: %d)%n", cpus);
+        int n = Math.min(MAX_NODES, 10_000_000);
+        for (boolean skewed : new boolean[]{true, false}) {
+            String s = skewed ? skewedTree(n) : balancedTree(n);
+            long sequential = bestNanos(() -> {
+                SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+                tree.fromBracketNotation(s);
+                return tree.getRoot().getValue();
+            });
+            System.out.printf("%-14s %,d узлов: последовательно %.2f мс%n",
+                    skewed ? "вырожденное" : "сбалансированное", n, sequential / 1e6);
+            for (int threads = 1; threads <= cpus; threads = threads < cpus ? Math.min(threads * 2, cpus) : threads + 1) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    long t = bestNanos(() -> {
+                        SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+                        tree.fromBracketNotationParallel(s, pool, SimpleBinaryTree.PARALLEL_THRESHOLD);
+                        return tree.getRoot().getValue();
+                    });
+                    System.out.printf("    потоков %3d: %10.2f мс, ускорение %.2f%n", threads, t / 1e6, (double) sequential / t);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     * SimpleBinaryTree&lt;String&gt;: fromBracketNotationLazy против fromBracketNotation -
+     * загрузка, загрузка с чтением всех значений и память, занимаемая деревом
+     */
+    static void lazy() throws Exception {
+        System.out.println("== lazy: отложенное и обычное декодирование значений");
+        int n = Math.min(MAX_NODES, 1_000_000);
+        String s = balancedTree(n);
+        long eagerLoad = bestNanos(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotation(s);
+            return tree.getRoot().getValue().length();
+        });
+        long lazyLoad = bestNanos(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotationLazy(s);
+            return tree.getRoot().getValue().length();
+        });
+        long eagerAll = bestNanos(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotation(s);
+            long sum = 0;
+            for (String value : tree.preOrderValues()) {
+                sum += value.length();
+            }
+            return sum;
+        });
+        long lazyAll = bestNanos(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotationLazy(s);
+            long sum = 0;
+            for (String value : tree.preOrderValues()) {
+                sum += value.length();
+            }
+            return sum;
+        });
+        long eagerHeap = retainedBytes(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotation(s);
+            return tree;
+        });
+        long lazyHeap = retainedBytes(() -> {
+            SimpleBinaryTree<String> tree = new SimpleBinaryTree<>(x -> x);
+            tree.fromBracketNotationLazy(s);
+            return tree;
+        });
+        System.out.printf("%,d узлов: загрузка - обычная %.2f мс, отложенная %.2f мс; " +
+                        "загрузка и чтение всех значений - %.2f мс и %.2f мс%n", n,
+                eagerLoad / 1e6, lazyLoad / 1e6, eagerAll / 1e6, lazyAll / 1e6);
+        System.out.printf("память дерева: обычное %.1f МБ, отложенное %.1f МБ " +
+                        "(плюс удерживаемая им исходная строка из %,d символов)%n",
+                eagerHeap / (1024.0 * 1024.0), lazyHeap / (1024.0 * 1024.0), s.length());
+    }
+
+    /**
+     * @return Сумма значений при обходе итератором (значения упаковываются)
+     */
+    static long sumValues(Iterable<Integer> values) {
+        long sum = 0;
+        for (Integer value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * IntBinaryTree против SimpleBinaryTree&lt;Integer&gt;: память дерева на узел, обход
+     * IntTraversals (без упаковки для IntBinaryTree) и итератором значений в ширину
+     */
+    static void intTree() throws Exception {
+        System.out.println("== int: IntBinaryTree и SimpleBinaryTree<Integer>");
+        int n = Math.min(MAX_NODES, 10_000_000);
+        String s = balancedTree(n);
+        IntBinaryTree intTree = new IntBinaryTree();
+        SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+        long intHeap = retainedBytes(() -> {
+            intTree.fromBracketNotation(s);
+            return intTree;
+        });
+        long heap = retainedBytes(() -> {
+            tree.fromBracketNotation(s);
+            return tree;
+        });
+        System.out.printf("%,d узлов, память на узел: IntBinaryTree %.1f байт, SimpleBinaryTree %.1f байт%n",
+                n, (double) intHeap / n, (double) heap / n);
+        long intSum = bestNanos(() -> IntTraversals.sum(intTree));
+        long sum = bestNanos(() -> IntTraversals.sum(tree));
+        long intByLevel = bestNanos(() -> sumValues(intTree.byLevelValues()));
+        long byLevel = bestNanos(() -> sumValues(tree.byLevelValues()));
+        System.out.printf("IntTraversals.sum: IntBinaryTree %.2f мс, SimpleBinaryTree %.2f мс; " +
+                        "byLevelValues: %.2f мс и %.2f мс%n",
+                intSum / 1e6, sum / 1e6, intByLevel / 1e6, byLevel / 1e6);
+    }
+
+    /**
+     * @return Сумма значений, умноженных на уровень, при обходе посетителем
+     */
+    static long visitSum(SimpleBinaryTreeInterface<Integer> tree, boolean byLevel) {
+        long[] sum = {0};
+        SimpleBinaryTreeInterface.Visitor<Integer> visitor = (value, level) -> sum[0] += (long) value * level;
+        if (byLevel) {
+            tree.byLevelVisit(visitor);
+        } else {
+            tree.inOrderVisit(visitor);
+        }
+        return sum[0];
+    }
+
+    /**
+     * ImplicitBinaryTree против связного SimpleBinaryTree&lt;Integer&gt; на полном дереве:
+     * byLevelVisit и inOrderVisit
+     */
+    static void implicit() throws Exception {
+        System.out.println("== implicit: неявное и связное представление полного дерева");
+        int n = Math.min(MAX_NODES, 10_000_000);
+        SimpleBinaryTree<Integer> linked = new SimpleBinaryTree<>(ValueDecoder.INT);
+        linked.fromBracketNotation(balancedTree(n));
+        ImplicitBinaryTree<Integer> implicit = ImplicitBinaryTree.fromTree(linked);
+        long linkedByLevel = bestNanos(() -> visitSum(linked, true));
+        long implicitByLevel = bestNanos(() -> visitSum(implicit, true));
+        long linkedInOrder = bestNanos(() -> visitSum(linked, false));
+        long implicitInOrder = bestNanos(() -> visitSum(implicit, false));
+        System.out.printf("%,d узлов: byLevelVisit - связное %.2f мс, неявное %.2f мс; " +
+                        "inOrderVisit - связное %.2f мс, неявное %.2f мс%n", n,
+                linkedByLevel / 1e6, implicitByLevel / 1e6, linkedInOrder / 1e6, implicitInOrder / 1e6);
+    }
+
+    /**
+     * @return Количество сборок мусора молодого поколения с запуска JVM
+     */
+    static long youngGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String name = gc.getName();
+            if (!name.contains("Old") && !name.contains("MarkSweep")) {
+                count += Math.max(gc.getCollectionCount(), 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Непрерывные циклы fromBracketNotation/clear() у SimpleBinaryTree&lt;Integer&gt;
+     * с пулом узлов и без него: циклов в секунду, выделение памяти и сборки мусора
+     */
+    static void arena() throws Exception {
+        System.out.println("== arena: циклы загрузка/clear() с пулом узлов и без него");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int n = Math.min(MAX_NODES, 10_000);
+        String s = balancedTree(n);
+        for (boolean arena : new boolean[]{false, true}) {
+            SimpleBinaryTree<Integer> tree = new SimpleBinaryTree<>(ValueDecoder.INT);
+            tree.setNodeArenaEnabled(arena);
+            // разогрев
+            for (long start = System.nanoTime(); System.nanoTime() - start < BUDGET_NANOS / 2; ) {
+                tree.fromBracketNotation(s);
+                tree.clear();
+            }
+            long cycles = 0;
+            long gcBefore = youngGcCount();
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                tree.fromBracketNotation(s);
+                sink += tree.getRoot().getValue();
+                tree.clear();
+                cycles++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < BUDGET_NANOS);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long gcs = youngGcCount() - gcBefore;
+            double seconds = elapsed / 1e9;
+            System.out.printf("%-9s (%,d узлов): %.0f циклов/с, выделение %.1f МБ/с (%.1f байт на узел), " +
+                            "сборок молодого поколения %.1f в секунду%n",
+                    arena ? "с пулом" : "без пула", n, cycles / seconds, allocated / seconds / (1024 * 1024),
+                    (double) allocated / cycles / n, gcs / seconds);
+        }
+    }
+
+    /**
+     * @return Узлы дерева в прямом порядке
+     */
+    static List<SimpleBinaryTree<Integer>.SimpleTreeNode> nodes(SimpleBinaryTree<Integer> tree) {
+        List<SimpleBinaryTree<Integer>.SimpleTreeNode> nodes = new ArrayList<>();
+        TraversalCursor<Integer> cursor = tree.cursor(SimpleBinaryTreeInterface.Order.PRE_ORDER);
+        while (cursor.next()) {
+            nodes.add((SimpleBinaryTree<Integer>.SimpleTreeNode) cursor.node());
+        }
+        return nodes;
+    }
+
+    /**
+     * Изменения дерева: замена значений и обмен поддеревьев случайных узлов
+     * @return Контрольное значение
+     */
+    static long mutate(List<SimpleBinaryTree<Integer>.SimpleTreeNode> nodes, int operations, long seed) {
+        Random random = new Random(seed);
+        long sum = 0;
+        for (int i = 0; i < operations; i++) {
+            SimpleBinaryTree<Integer>.SimpleTreeNode node = nodes.get(random.nextInt(nodes.size()));
+            if ((i & 1) == 0) {
+                node.setValue(random.nextInt(1_000_000));
+            } else {
+                SimpleBinaryTree<Integer>.SimpleTreeNode left = node.left;
+                node.setLeft(node.right);
+                node.setRight(left);
+            }
+            sum += node.getValue();
+        }
+        return sum;
+    }
+
+    /**
+     * SimpleBinaryTree&lt;Integer&gt; против AugmentedBinaryTree (агрегат - сумма): загрузка,
+     * изменения случайных узлов (значения и обмен поддеревьев) и deleteNodesWithOneDescendant
+     */
+    static void augmented() throws Exception {
+        System.out.println("== augmented: изменения дерева с аннотациями и без них");
+        int n = Math.min(MAX_NODES, 1_000_000);
+        int operations = 1_000_000;
+        String s = balancedTree(n);
+        SimpleBinaryTree<Integer> plain = new SimpleBinaryTree<>(ValueDecoder.INT);
+        AugmentedBinaryTree<Integer, Long> augmented = new AugmentedBinaryTree<>(ValueDecoder.INT, AugmentedBinaryTree.Monoid.sum());
+        long plainLoad = bestNanos(() -> {
+            plain.fromBracketNotation(s);
+            return plain.getRoot().getValue();
+        });
+        long augmentedLoad = bestNanos(() -> {
+            augmented.fromBracketNotation(s);
+            return augmented.getRoot().getValue();
+        });
+        List<SimpleBinaryTree<Integer>.SimpleTreeNode> plainNodes = nodes(plain);
+        List<SimpleBinaryTree<Integer>.SimpleTreeNode> augmentedNodes = nodes(augmented);
+        long plainMutate = bestNanos(() -> mutate(plainNodes, operations, 1));
+        long augmentedMutate = bestNanos(() -> mutate(augmentedNodes, operations, 1));
+        // удаление меняет дерево, поэтому перед каждым замером дерево загружается заново
+        String oneChild = oneChildTree(n / 2);
+        long plainDelete = bestNanos(() -> {
+            plain.fromBracketNotation(oneChild);
+            return 0;
+        }, () -> {
+            plain.deleteNodesWithOneDescendant(plain);
+            return plain.getRoot().getValue();
+        });
+        long augmentedDelete = bestNanos(() -> {
+            augmented.fromBracketNotation(oneChild);
+            return 0;
+        }, () -> {
+            augmented.deleteNodesWithOneDescendant(augmented);
+            return augmented.getRoot().getValue();
+        });
+        System.out.printf("%,d узлов: загрузка - без аннотаций %.2f мс, с аннотациями %.2f мс%n",
+                n, plainLoad / 1e6, augmentedLoad / 1e6);
+        System.out.printf("%,d изменений случайных узлов: %.1f нс и %.1f нс на изменение%n",
+                operations, (double) plainMutate / operations, (double) augmentedMutate / operations);
+        System.out.printf("deleteNodesWithOneDescendant (%,d узлов, половина - с одним потомком): %.2f мс и %.2f мс%n",
+                n / 2 * 2, plainDelete / 1e6, augmentedDelete / 1e6);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> sections = Arrays.asList(args.length == 0 ? SECTIONS : args);
+        for (String section : sections) {
+            switch (section) {
+                case "parse":
+                    parse();
+                    break;
+                case "mapped":
+                    mapped();
+                    break;
+                case "parallel":
+                    parallel();
+                    break;
+                case "lazy":
+                    lazy();
+                    break;
+                case "int":
+                    intTree();
+                    break;
+                case "implicit":
+                    implicit();
+                    break;
+                case "arena":
+                    arena();
+                    break;
+                case "augmented":
+                    augmented();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный раздел: " + section + " (есть: " + String.join(", ", SECTIONS) + ")");
+            }
+        }
+        System.out.println("(" + sink + ")");
+    }
+}
@@ -0,0 +1,56 @@
+package com.company;
+
+/**
+ * Обработчик событий разбора дерева в скобочной нотации (в стиле SAX).
+ * Позволяет вычислять характеристики дерева (количество узлов, высоту, суммы и т.п.)
+ * за один проход, не строя само дерево. Глубина корня равна 0.
+ *
+ * @param <T> Тип значений в узлах
+ */
+public interface BracketNotationHandler<T> {
+
+    /**
+     * Начало узла (значение уже прочитано)
+     * @param value Значение узла
+     * @param depth Глубина узла
+     * @throws Exception Ошибка обработки (прерывает разбор)
+     */
+    void startNode(T value, int depth) throws Exception;
+
+    /**
+     * У узла отсутствует левое поддерево, следующий дочерний узел (если есть) - правый
+     * @param depth Глубина узла, у которого отсутствует левое поддерево
+     * @throws Exception Ошибка обработки (прерывает разбор)
+     */
+    default void emptyLeft(int depth) throws Exception {
+    }
+
+    /**
+     * Окончание узла (все его поддеревья уже разобраны)
+     * @param depth Глубина узла
+     * @throws Exception Ошибка обработки (прерывает разбор)
+     */
+    default void endNode(int depth) throws Exception {
+    }
+
+    /**
+     * Окончание входных данных (дерево разобрано полностью и без ошибок)
+     * @throws Exception Ошибка обработки
+     */
+    default void endOfInput() throws Exception {
+    }
+
+    /**
+     * Обработчик для целочисленных значений: если парсер создан с ValueDecoder.IntDecoder,
+     * значения передаются без упаковки в Integer
+     */
+    interface IntHandler extends BracketNotationHandler<Integer> {
+
+        void startNode(int value, int depth) throws Exception;
+
+        @Override
+        default void startNode(Integer value, int depth) throws Exception {
+            startNode(value.intValue(), depth);
+        }
+    }
+}
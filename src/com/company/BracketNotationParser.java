@@ -0,0 +1,203 @@
+package com.company;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Потоковый разбор дерева в скобочной нотации без построения дерева:
+ * по мере чтения вызываются методы BracketNotationHandler.
+ * Разбор итеративный, дополнительная память - O(высоты дерева).
+ *
+ * @param <T> Тип значений в узлах
+ */
+public class BracketNotationParser<T> {
+
+    private final ValueDecoder<T> valueDecoder;
+
+    /**
+     * @param valueDecoder Декодер значений узлов
+     */
+    public BracketNotationParser(ValueDecoder<T> valueDecoder) {
+        this.valueDecoder = valueDecoder;
+    }
+
+    /**
+     * Разбор дерева из источника (источник должен содержать ровно одно дерево)
+     * @param src Источник символов
+     * @param handler Обработчик событий
+     * @throws Exception Ошибка чтения, разбора или обработчика
+     */
+    public void parse(BracketNotationSource src, BracketNotationHandler<T> handler) throws Exception {
+        parseSubtree(src, handler);
+        if (src.peek() >= 0) {
+            throw new Exception(String.format("Ожидался конец строки [%d]", src.position()));
+        }
+        handler.endOfInput();
+    }
+
+    public void parse(CharSequence bracketStr, BracketNotationHandler<T> handler) throws Exception {
+        parse(BracketNotationSource.of(bracketStr), handler);
+    }
+
+    /**
+     * @param reader Reader (не закрывается)
+     * @param handler Обработчик событий
+     * @throws Exception Ошибка чтения, разбора или обработчика
+     */
+    public void parse(Reader reader, BracketNotationHandler<T> handler) throws Exception {
+        parse(BracketNotationSource.of(reader), handler);
+    }
+
+    private static void skipSpaces(BracketNotationSource src) throws IOException {
+        int c;
+        while ((c = src.peek()) >= 0 && Character.isWhitespace(c)) {
+            src.next();
+        }
+    }
+
+    private static char charAt(BracketNotationSource src) throws Exception {
+        int c = src.peek();
+        if (c < 0) {
+            throw new Exception(String.format("Неожиданный конец строки [%d]", src.position()));
+        }
+        return (char) c;
+    }
+
+    /**
+     * Чтение значения узла (вместе с пробелами перед ним). Токен остается открытым,
+     * пробелы по краям и кавычки отбрасываются без создания промежуточных строк.
+     * @return Диапазон значения в src.tokenChars(): (from &lt;&lt; 32) | to
+     */
+    private static long scanValue(BracketNotationSource src) throws Exception {
+        // пропускаем возможные пробелы
+        skipSpaces(src);
+        charAt(src);
+        src.startToken();
+        boolean quote = src.peek() == '"';
+        if (quote) {
+            src.next();
+        }
+        int c;
+        while ((c = src.peek()) >= 0 && (
+                quote && c != '"' ||
+                        !quote && !Character.isWhitespace(c) && "(),".indexOf(c) < 0
+        )) {
+            src.next();
+        }
+        if (quote && c == '"') {
+            src.next();
+        }
+        CharSequence s = src.tokenChars();
+        int from = src.tokenStart();
+        int to = src.tokenEnd();
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from < to && s.charAt(from) == '"') {
+            from++;
+        }
+        if (from < to && s.charAt(to - 1) == '"') {
+            to--;
+        }
+        return (long) from << 32 | to;
+    }
+
+    private void checkDecoder() throws Exception {
+        if (valueDecoder == null) {
+            throw new Exception("Не определена функция конвертации строки в T");
+        }
+    }
+
+    /**
+     * Чтение значения узла (вместе с пробелами вокруг него)
+     */
+    T readValue(BracketNotationSource src) throws Exception {
+        checkDecoder();
+        long range = scanValue(src);
+        T value = valueDecoder.decode(src.tokenChars(), (int) (range >>> 32), (int) range);
+        src.endToken();
+        skipSpaces(src);
+        return value;
+    }
+
+    /**
+     * Чтение целочисленного значения узла без упаковки (декодер должен быть IntDecoder)
+     */
+    private int readIntValue(BracketNotationSource src) throws Exception {
+        long range = scanValue(src);
+        int value = ((ValueDecoder.IntDecoder) valueDecoder).decodeInt(src.tokenChars(), (int) (range >>> 32), (int) range);
+        src.endToken();
+        skipSpaces(src);
+        return value;
+    }
+
+    /**
+     * Разбор одного (под)дерева, начинающегося в текущей позиции источника.
+     * Вместо стека вызовов используется явный стек еще не закрытых узлов,
+     * поэтому глубина дерева ограничена только размером кучи.
+     * @param src Источник символов
+     * @param handler Обработчик событий
+     * @throws Exception Ошибка чтения, разбора или обработчика
+     */
+    void parseSubtree(BracketNotationSource src, BracketNotationHandler<T> handler) throws Exception {
+        // для каждого незакрытого узла: начато ли уже его правое поддерево
+        boolean[] rightStarted = new boolean[16];
+        // количество узлов, для которых уже прочитана '(', но еще не прочитана ')'
+        int depth = 0;
+        // целые значения передаются без упаковки, если это поддерживают и декодер, и обработчик
+        BracketNotationHandler.IntHandler intHandler =
+                valueDecoder instanceof ValueDecoder.IntDecoder && handler instanceof BracketNotationHandler.IntHandler ?
+                        (BracketNotationHandler.IntHandler) handler : null;
+        while (true) {
+            if (intHandler != null) {
+                intHandler.startNode(readIntValue(src), depth);
+            } else {
+                handler.startNode(readValue(src), depth);
+            }
+            if (src.peek() == '(') {
+                src.next();
+                skipSpaces(src);
+                if (depth == rightStarted.length) {
+                    rightStarted = Arrays.copyOf(rightStarted, depth * 2);
+                }
+                rightStarted[depth++] = false;
+                if (charAt(src) != ',') {
+                    // далее левое поддерево
+                    continue;
+                }
+                handler.emptyLeft(depth - 1);
+            } else {
+                handler.endNode(depth);
+            }
+            // поднимаемся вверх по стеку, пока не встретим узел, у которого еще можно прочитать правое поддерево
+            while (depth > 0) {
+                int parent = depth - 1;
+                if (!rightStarted[parent]) {
+                    // закончено (или пропущено) левое поддерево
+                    if (charAt(src) == ',') {
+                        src.next();
+                        skipSpaces(src);
+                    }
+                    if (charAt(src) != ')') {
+                        rightStarted[parent] = true;
+                        break;
+                    }
+                }
+                if (charAt(src) != ')') {
+                    throw new Exception(String.format("Ожидалось ')' [%d]", src.position()));
+                }
+                src.next();
+                skipSpaces(src);
+                depth = parent;
+                handler.endNode(depth);
+            }
+            if (depth == 0) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.company;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Источник символов для разбора дерева в скобочной нотации.
+ * Символы читаются последовательно (peek/next), а значения узлов выделяются
+ * как "токены" - диапазоны [tokenStart, tokenEnd) в tokenChars(), которые
+ * гарантированно непрерывны, пока токен не закрыт вызовом endToken().
+ */
+public abstract class BracketNotationSource implements Closeable {
+
+    /**
+     * @return Текущий символ или -1, если достигнут конец входных данных
+     * @throws IOException Ошибка чтения
+     */
+    public abstract int peek() throws IOException;
+
+    /**
+     * Переход к следующему символу (текущий символ должен быть прочитан через peek())
+     */
+    public abstract void next();
+
+    /**
+     * @return Смещение текущего символа от начала входных данных (в символах)
+     */
+    public abstract long position();
+
+    /**
+     * Начало токена в текущей позиции
+     */
+    public abstract void startToken();
+
+    /**
+     * @return Символы, в которых лежит текущий токен
+     */
+    public abstract CharSequence tokenChars();
+
+    /**
+     * @return Индекс начала токена в tokenChars()
+     */
+    public abstract int tokenStart();
+
+    /**
+     * @return Индекс конца токена (текущей позиции) в tokenChars()
+     */
+    public abstract int tokenEnd();
+
+    /**
+     * Окончание работы с токеном (после этого буфер может быть переиспользован)
+     */
+    public abstract void endToken();
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * Источник поверх строки (или любой другой CharSequence)
+     * @param s Строка
+     * @return Источник
+     */
+    public static BracketNotationSource of(CharSequence s) {
+        return new CharSequenceSource(s, 0);
+    }
+
+    /**
+     * Источник поверх Reader'а с ограниченным буфером: в памяти одновременно
+     * находится только текущий фрагмент входных данных (и текущий токен целиком)
+     * @param reader Reader
+     * @return Источник
+     */
+    public static BracketNotationSource of(Reader reader) {
+        return new ReaderSource(reader, ReaderSource.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Источник поверх файла, отображенного в память (FileChannel.map).
+     * Байты разбираются напрямую, без декодирования файла в символы;
+     * предполагается ASCII-совместимая кодировка (значения в кавычках
+     * декодируются как UTF-8). Файлы больше 2 ГБ отображаются окнами,
+     * позиции в сообщениях об ошибках - смещения в байтах.
+     * @param path Путь к файлу
+     * @return Источник (требует закрытия)
+     * @throws IOException Ошибка открытия или отображения файла
+     */
+    public static BracketNotationSource ofMappedFile(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedFileSource(channel, MappedFileSource.DEFAULT_WINDOW_SIZE);
+        } catch (Throwable ex) {
+            // источник не создан - закрыть канал больше некому
+            try {
+                channel.close();
+            } catch (IOException closeEx) {
+                ex.addSuppressed(closeEx);
+            }
+            throw ex;
+        }
+    }
+
+    static class CharSequenceSource extends BracketNotationSource {
+        private final CharSequence s;
+        private int index;
+        private int tokenStart = -1;
+
+        CharSequenceSource(CharSequence s, int index) {
+            this.s = s;
+            this.index = index;
+        }
+
+        @Override
+        public int peek() {
+            return index < s.length() ? s.charAt(index) : -1;
+        }
+
+        @Override
+        public void next() {
+            index++;
+        }
+
+        @Override
+        public long position() {
+            return index;
+        }
+
+        @Override
+        public void startToken() {
+            tokenStart = index;
+        }
+
+        @Override
+        public CharSequence tokenChars() {
+            return s;
+        }
+
+        @Override
+        public int tokenStart() {
+            return tokenStart;
+        }
+
+        @Override
+        public int tokenEnd() {
+            return index;
+        }
+
+        @Override
+        public void endToken() {
+            tokenStart = -1;
+        }
+    }
+
+    static class ReaderSource extends BracketNotationSource {
+        static final int DEFAULT_BUFFER_SIZE = 8192;
+
+        private final Reader reader;
+        private char[] buf;
+        private CharBuffer bufView;
+        private int pos = 0;
+        private int limit = 0;
+        // смещение buf[0] от начала входных данных
+        private long base = 0;
+        private int tokenStart = -1;
+        private boolean eof = false;
+
+        ReaderSource(Reader reader, int bufferSize) {
+            this.reader = reader;
+            this.buf = new char[bufferSize];
+            this.bufView = CharBuffer.wrap(buf);
+        }
+
+        /**
+         * Дочитывание очередного фрагмента. Уже прочитанные символы (кроме
+         * незакрытого токена) отбрасываются, буфер растет только если в него
+         * не помещается один токен.
+         */
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            int keep = tokenStart >= 0 ? tokenStart : pos;
+            if (keep > 0) {
+                System.arraycopy(buf, keep, buf, 0, limit - keep);
+                base += keep;
+                pos -= keep;
+                limit -= keep;
+                if (tokenStart >= 0) {
+                    tokenStart = 0;
+                }
+            }
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                bufView = CharBuffer.wrap(buf);
+            }
+            int n;
+            do {
+                n = reader.read(buf, limit, buf.length - limit);
+            } while (n == 0);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            limit += n;
+            return true;
+        }
+
+        @Override
+        public int peek() throws IOException {
+            if (pos >= limit && !fill()) {
+                return -1;
+            }
+            return buf[pos];
+        }
+
+        @Override
+        public void next() {
+            pos++;
+        }
+
+        @Override
+        public long position() {
+            return base + pos;
+        }
+
+        @Override
+        public void startToken() {
+            tokenStart = pos;
+        }
+
+        @Override
+        public CharSequence tokenChars() {
+            return bufView;
+        }
+
+        @Override
+        public int tokenStart() {
+            return tokenStart;
+        }
+
+        @Override
+        public int tokenEnd() {
+            return pos;
+        }
+
+        @Override
+        public void endToken() {
+            tokenStart = -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Представление байт окна в виде CharSequence (один байт - один символ)
+     */
+    static class ByteWindow implements CharSequence {
+        private ByteBuffer buf;
+
+        @Override
+        public int length() {
+            return buf.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    static class MappedFileSource extends BracketNotationSource {
+        static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int windowSize;
+        private final ByteWindow window = new ByteWindow();
+        private MappedByteBuffer buf;
+        // смещение начала окна от начала файла
+        private long windowStart = 0;
+        private int pos = 0;
+        private int tokenStart = -1;
+
+        MappedFileSource(FileChannel channel, int windowSize) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            this.windowSize = windowSize;
+            map(0);
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+            window.buf = buf;
+        }
+
+        /**
+         * Сдвиг окна так, чтобы оно начиналось с начала незакрытого токена (или текущей позиции)
+         */
+        private boolean remap() throws IOException {
+            if (windowStart + buf.limit() >= fileSize) {
+                return false;
+            }
+            int keep = tokenStart >= 0 ? tokenStart : pos;
+            if (keep == 0) {
+                throw new IOException(String.format("Слишком длинное значение [%d]", windowStart));
+            }
+            map(windowStart + keep);
+            pos -= keep;
+            if (tokenStart >= 0) {
+                tokenStart = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int peek() throws IOException {
+            if (pos >= buf.limit() && !remap()) {
+                return -1;
+            }
+            return buf.get(pos) & 0xFF;
+        }
+
+        @Override
+        public void next() {
+            pos++;
+        }
+
+        @Override
+        public long position() {
+            return windowStart + pos;
+        }
+
+        @Override
+        public void startToken() {
+            tokenStart = pos;
+        }
+
+        @Override
+        public CharSequence tokenChars() {
+            return window;
+        }
+
+        @Override
+        public int tokenStart() {
+            return tokenStart;
+        }
+
+        @Override
+        public int tokenEnd() {
+            return pos;
+        }
+
+        @Override
+        public void endToken() {
+            tokenStart = -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.company;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Запись дерева в скобочной нотации. Обход дерева итеративный (глубина дерева
+ * не ограничена размером стека потока), текст накапливается в буфере фиксированного
+ * размера и передается дальше порциями, так что дерево целиком в памяти в виде текста
+ * не собирается. Целые числа записываются сразу цифрами, без toString().
+ */
+public class BracketNotationWriter implements Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Получатель очередной порции текста
+     */
+    private interface Sink {
+        void write(char[] buf, int len, boolean last) throws IOException;
+    }
+
+    private final Sink sink;
+    private final char[] buf;
+    private int len = 0;
+
+    private BracketNotationWriter(Sink sink, int bufferSize) {
+        this.sink = sink;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * @param out Куда писать (Writer, StringBuilder и т.п.)
+     */
+    public BracketNotationWriter(Appendable out) {
+        this(appendableSink(out), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel Канал, в который текст пишется в кодировке UTF-8
+     */
+    public BracketNotationWriter(WritableByteChannel channel) {
+        this(new ChannelSink(channel, DEFAULT_BUFFER_SIZE), DEFAULT_BUFFER_SIZE);
+    }
+
+    private static Sink appendableSink(Appendable out) {
+        if (out instanceof Writer) {
+            Writer writer = (Writer) out;
+            return (buf, len, last) -> writer.write(buf, 0, len);
+        }
+        if (out instanceof StringBuilder) {
+            StringBuilder sb = (StringBuilder) out;
+            return (buf, len, last) -> sb.append(buf, 0, len);
+        }
+        return (buf, len, last) -> out.append(CharBuffer.wrap(buf, 0, len));
+    }
+
+    /**
+     * Кодирование порций текста в UTF-8 и запись в канал
+     */
+    private static class ChannelSink implements Sink {
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final ByteBuffer bytes;
+        // незакодированный остаток предыдущей порции (половина суррогатной пары)
+        private char[] pending = new char[0];
+
+        ChannelSink(WritableByteChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.bytes = ByteBuffer.allocate(bufferSize * 3);
+        }
+
+        @Override
+        public void write(char[] buf, int len, boolean last) throws IOException {
+            CharBuffer chars;
+            if (pending.length > 0) {
+                char[] joined = Arrays.copyOf(pending, pending.length + len);
+                System.arraycopy(buf, 0, joined, pending.length, len);
+                chars = CharBuffer.wrap(joined);
+            } else {
+                chars = CharBuffer.wrap(buf, 0, len);
+            }
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, last);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                drain();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            pending = new char[chars.remaining()];
+            chars.get(pending);
+            if (last) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    drain();
+                }
+                drain();
+                encoder.reset();
+            }
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (len + n > buf.length) {
+            sink.write(buf, len, false);
+            len = 0;
+        }
+    }
+
+    private void append(char c) throws IOException {
+        ensure(1);
+        buf[len++] = c;
+    }
+
+    private void append(String s) throws IOException {
+        for (int from = 0, n = s.length(); from < n; ) {
+            ensure(1);
+            int count = Math.min(n - from, buf.length - len);
+            s.getChars(from, from + count, buf, len);
+            len += count;
+            from += count;
+        }
+    }
+
+    /**
+     * Запись целого числа цифрами прямо в буфер
+     */
+    private void appendLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            append(Long.toString(v));
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buf[len++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        for (int i = len + digits - 1; i >= len; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        len += digits;
+    }
+
+    private void appendValue(Object value) throws IOException {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            appendLong(((Number) value).longValue());
+        } else {
+            append(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Запись (под)дерева в скобочной нотации
+     * @param root Корень (если null - ничего не пишется)
+     * @param <T> Тип значений в узлах
+     * @throws IOException Ошибка записи
+     */
+    public <T> void write(SimpleBinaryTreeInterface.TreeNode<T> root) throws IOException {
+        if (root == null) {
+            return;
+        }
+        // явный стек узлов и для каждого - что уже записано:
+        // 0 - ничего, 1 - значение и левое поддерево, 2 - и правое поддерево
+        @SuppressWarnings("unchecked")
+        SimpleBinaryTreeInterface.TreeNode<T>[] nodes = (SimpleBinaryTreeInterface.TreeNode<T>[]) new SimpleBinaryTreeInterface.TreeNode<?>[16];
+        byte[] states = new byte[16];
+        int top = 0;
+        nodes[top] = root;
+        states[top++] = 0;
+        while (top > 0) {
+            SimpleBinaryTreeInterface.TreeNode<T> node = nodes[top - 1];
+            SimpleBinaryTreeInterface.TreeNode<T> child;
+            if (states[top - 1] == 0) {
+                appendValue(node.getValue());
+                child = node.getLeft();
+                if (child == null && node.getRight() == null) {
+                    top--;
+                    continue;
+                }
+                append(" (");
+                states[top - 1] = 1;
+            } else if (states[top - 1] == 1) {
+                states[top - 1] = 2;
+                child = node.getRight();
+                if (child != null) {
+                    append(", ");
+                }
+            } else {
+                append(')');
+                top--;
+                continue;
+            }
+            if (child != null) {
+                if (top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    states = Arrays.copyOf(states, top * 2);
+                }
+                nodes[top] = child;
+                states[top++] = 0;
+            }
+        }
+    }
+
+    /**
+     * Передача накопленного текста получателю (для канала - с завершением кодирования)
+     * @throws IOException Ошибка записи
+     */
+    @Override
+    public void flush() throws IOException {
+        sink.write(buf, len, true);
+        len = 0;
+    }
+}
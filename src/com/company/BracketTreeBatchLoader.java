@@ -0,0 +1,315 @@
+package com.company;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Загрузка файлов, содержащих множество деревьев (по одному дереву в скобочной нотации на строку).
+ * Работает как конвейер из трех стадий, связанных очередями ограниченного размера:
+ * чтение строк (отдельный поток) - разбор (пул потоков) - передача деревьев потребителю
+ * (вызывающий поток). Если какая-то стадия не успевает, предыдущие блокируются,
+ * поэтому расход памяти не зависит от размера файла.
+ *
+ * @param <T> Тип значений в узлах деревьев
+ */
+public class BracketTreeBatchLoader<T> {
+
+    /**
+     * Потребитель загруженных деревьев (вызывается из одного потока)
+     */
+    @FunctionalInterface
+    public interface TreeConsumer<T> {
+        void accept(long lineNumber, SimpleBinaryTree<T> tree) throws Exception;
+    }
+
+    /**
+     * Статистика по стадиям конвейера
+     */
+    public static class Stats {
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong chars = new AtomicLong();
+        private final AtomicLong readNanos = new AtomicLong();
+        private final AtomicLong parsed = new AtomicLong();
+        private final AtomicLong parseNanos = new AtomicLong();
+        private final AtomicLong consumed = new AtomicLong();
+        private final AtomicLong consumeNanos = new AtomicLong();
+        private long elapsedNanos;
+
+        public long getLines() {
+            return lines.get();
+        }
+
+        public long getChars() {
+            return chars.get();
+        }
+
+        public long getParsed() {
+            return parsed.get();
+        }
+
+        public long getConsumed() {
+            return consumed.get();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        private static double perSecond(long count, long nanos) {
+            return nanos == 0 ? 0 : count * 1e9 / nanos;
+        }
+
+        /**
+         * @return Скорость стадии чтения (строк в секунду занятого времени потока чтения)
+         */
+        public double getReadThroughput() {
+            return perSecond(lines.get(), readNanos.get());
+        }
+
+        /**
+         * @return Скорость разбора (деревьев в секунду суммарного времени потоков разбора)
+         */
+        public double getParseThroughput() {
+            return perSecond(parsed.get(), parseNanos.get());
+        }
+
+        /**
+         * @return Скорость потребителя (деревьев в секунду времени, проведенного в потребителе)
+         */
+        public double getConsumeThroughput() {
+            return perSecond(consumed.get(), consumeNanos.get());
+        }
+
+        /**
+         * @return Общая скорость загрузки (деревьев в секунду)
+         */
+        public double getOverallThroughput() {
+            return perSecond(consumed.get(), elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("строк: %d (%d символов), чтение: %.0f строк/с, разбор: %.0f деревьев/с (на поток), " +
+                            "потребитель: %.0f деревьев/с, итого: %.0f деревьев/с за %.3f с",
+                    getLines(), getChars(), getReadThroughput(), getParseThroughput(),
+                    getConsumeThroughput(), getOverallThroughput(), elapsedNanos / 1e9);
+        }
+    }
+
+    private static class Line {
+        final long number;
+        final String text;
+
+        Line(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+
+    private static class Parsed<T> {
+        final long number;
+        final SimpleBinaryTree<T> tree;
+
+        Parsed(long number, SimpleBinaryTree<T> tree) {
+            this.number = number;
+            this.tree = tree;
+        }
+    }
+
+    private static final Line END_OF_LINES = new Line(-1, null);
+
+    private final Supplier<SimpleBinaryTree<T>> treeFactory;
+    private final int workers;
+    private final int queueCapacity;
+
+    /**
+     * @param treeFactory Создание пустого дерева (с нужной функцией конвертации значений)
+     * @param workers Количество потоков разбора
+     * @param queueCapacity Размер очередей между стадиями
+     */
+    public BracketTreeBatchLoader(Supplier<SimpleBinaryTree<T>> treeFactory, int workers, int queueCapacity) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("workers и queueCapacity должны быть положительными");
+        }
+        this.treeFactory = treeFactory;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public BracketTreeBatchLoader(Supplier<SimpleBinaryTree<T>> treeFactory) {
+        this(treeFactory, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * Загрузка деревьев из файла (в кодировке UTF-8)
+     * @param path Путь к файлу
+     * @param consumer Потребитель деревьев
+     * @return Статистика по стадиям
+     * @throws Exception Ошибка чтения, разбора (с номером строки) или потребителя
+     */
+    public Stats load(Path path, TreeConsumer<T> consumer) throws Exception {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader, consumer);
+        }
+    }
+
+    /**
+     * Загрузка деревьев из Reader'а. Пустые строки пропускаются.
+     * Потребитель вызывается в вызывающем потоке в порядке готовности деревьев
+     * (который может отличаться от порядка строк).
+     * При первой ошибке (в том числе Error) любой стадии загрузка прекращается: чтение
+     * останавливается, а разбор и потребитель дочитывают очереди вхолостую, поэтому
+     * к моменту выхода из метода все потоки конвейера завершены.
+     * @param reader Reader (не закрывается)
+     * @param consumer Потребитель деревьев
+     * @return Статистика по стадиям
+     * @throws Exception Ошибка чтения, разбора (с номером строки) или потребителя
+     */
+    public Stats load(Reader reader, TreeConsumer<T> consumer) throws Exception {
+        Stats stats = new Stats();
+        BlockingQueue<Line> lines = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Parsed<T>> trees = new ArrayBlockingQueue<>(queueCapacity);
+        Parsed<T> endOfTrees = new Parsed<>(-1, null);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        Thread readerThread = new Thread(() -> {
+            boolean interrupted = false;
+            try {
+                BufferedReader br = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+                long number = 0;
+                while (error.get() == null) {
+                    long t = System.nanoTime();
+                    String text = br.readLine();
+                    stats.readNanos.addAndGet(System.nanoTime() - t);
+                    if (text == null) {
+                        break;
+                    }
+                    number++;
+                    if (text.isBlank()) {
+                        continue;
+                    }
+                    stats.lines.incrementAndGet();
+                    stats.chars.addAndGet(text.length());
+                    lines.put(new Line(number, text));
+                }
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            } catch (Throwable ex) {
+                error.compareAndSet(null, ex);
+            } finally {
+                for (int i = 0; i < workers; i++) {
+                    interrupted = !post(lines, END_OF_LINES, interrupted);
+                }
+            }
+        }, "bracket-reader");
+
+        Thread[] workerThreads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            workerThreads[i] = new Thread(() -> {
+                boolean interrupted = false;
+                try {
+                    for (Line line = lines.take(); line != END_OF_LINES; line = lines.take()) {
+                        if (error.get() != null) {
+                            continue;
+                        }
+                        long t = System.nanoTime();
+                        try {
+                            SimpleBinaryTree<T> tree = treeFactory.get();
+                            tree.fromBracketNotation(line.text);
+                            stats.parseNanos.addAndGet(System.nanoTime() - t);
+                            stats.parsed.incrementAndGet();
+                            trees.put(new Parsed<>(line.number, tree));
+                        } catch (InterruptedException ex) {
+                            throw ex;
+                        } catch (Exception ex) {
+                            error.compareAndSet(null, new Exception(
+                                    String.format("Строка %d: %s", line.number, ex.getMessage()), ex));
+                        } catch (Throwable ex) {
+                            error.compareAndSet(null, ex);
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } finally {
+                    post(trees, endOfTrees, interrupted);
+                }
+            }, "bracket-parser-" + i);
+        }
+
+        readerThread.setDaemon(true);
+        readerThread.start();
+        for (Thread worker : workerThreads) {
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        try {
+            for (int finished = 0; finished < workers; ) {
+                Parsed<T> parsed = trees.take();
+                if (parsed == endOfTrees) {
+                    finished++;
+                    continue;
+                }
+                if (error.get() != null) {
+                    continue;
+                }
+                long t = System.nanoTime();
+                try {
+                    consumer.accept(parsed.number, parsed.tree);
+                    stats.consumed.incrementAndGet();
+                } catch (Throwable ex) {
+                    error.compareAndSet(null, ex);
+                }
+                stats.consumeNanos.addAndGet(System.nanoTime() - t);
+            }
+            readerThread.join();
+        } catch (InterruptedException ex) {
+            readerThread.interrupt();
+            for (Thread worker : workerThreads) {
+                worker.interrupt();
+            }
+            throw ex;
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+
+        Throwable failure = error.get();
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new Exception(failure);
+        }
+        return stats;
+    }
+
+    /**
+     * Передача маркера конца следующей стадии. Если поток прерван (вызывающий поток
+     * больше не ждет результатов), маркер передается без ожидания места в очереди.
+     * @return Передан ли маркер без прерывания
+     */
+    private static <E> boolean post(BlockingQueue<E> queue, E marker, boolean interrupted) {
+        if (!interrupted) {
+            try {
+                queue.put(marker);
+                return true;
+            } catch (InterruptedException ex) {
+                // далее - без ожидания
+            }
+        }
+        queue.offer(marker);
+        Thread.currentThread().interrupt();
+        return false;
+    }
+}
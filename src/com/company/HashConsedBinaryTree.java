@@ -0,0 +1,215 @@
+package com.company;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Неизменяемое двоичное дерево, в котором одинаковые по структуре и значениям
+ * поддеревья хранятся в одном экземпляре (hash consing). Фактически дерево
+ * представляет собой ориентированный ациклический граф, но для обхода через
+ * SimpleBinaryTreeInterface.TreeNode выглядит как обычное дерево.
+ * Для деревьев с большим количеством повторяющихся фрагментов это резко
+ * сокращает количество узлов в памяти.
+ *
+ * @param <T> Тип значений в узлах (должен корректно реализовывать equals/hashCode)
+ */
+public class HashConsedBinaryTree<T> implements SimpleBinaryTreeInterface<T> {
+
+    /**
+     * Неизменяемый узел. Потомки - уже канонические узлы, поэтому сравниваются по ссылке.
+     */
+    protected static class Node<T> implements SimpleBinaryTreeInterface.SizedTreeNode<T> {
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int hash;
+        // количество узлов в поддереве (с учетом всех повторов)
+        private final long size;
+
+        protected Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.hash = 31 * (31 * Objects.hashCode(value) + (left == null ? 0 : left.hash)) + (right == null ? 0 : right.hash);
+            this.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+        }
+
+        @Override
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public TreeNode<T> getLeft() {
+            return left;
+        }
+
+        @Override
+        public TreeNode<T> getRight() {
+            return right;
+        }
+
+        @Override
+        public long getSubtreeSize() {
+            return size;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Node)) {
+                return false;
+            }
+            Node<?> other = (Node<?>) obj;
+            return hash == other.hash && left == other.left && right == other.right && Objects.equals(value, other.value);
+        }
+    }
+
+    /**
+     * Примерный расход памяти на одну запись HashMap (Node: заголовок, hash, key, value, next)
+     * и на одну ячейку таблицы (при сжатых указателях)
+     */
+    private static final int HASH_ENTRY_BYTES = 32;
+    private static final int HASH_BUCKET_BYTES = 4;
+
+    private final ValueDecoder<T> valueDecoder;
+    private Node<T> root = null;
+    private long uniqueNodes = 0;
+    private long hashTableBytes = 0;
+
+    /**
+     * @param valueDecoder Декодер значений узлов (например, ValueDecoder.INT)
+     */
+    public HashConsedBinaryTree(ValueDecoder<T> valueDecoder) {
+        this.valueDecoder = valueDecoder;
+    }
+
+    @Override
+    public TreeNode<T> getRoot() {
+        return root;
+    }
+
+    public void clear() {
+        root = null;
+        uniqueNodes = 0;
+        hashTableBytes = 0;
+    }
+
+    /**
+     * Построение дерева по событиям парсера: узел канонизируется, когда готовы оба его поддерева
+     */
+    private class Builder implements BracketNotationHandler<T> {
+        private final HashMap<Node<T>, Node<T>> table = new HashMap<>();
+        private Object[] values = new Object[16];
+        @SuppressWarnings("unchecked")
+        private Node<T>[] lefts = (Node<T>[]) new Node<?>[16];
+        @SuppressWarnings("unchecked")
+        private Node<T>[] rights = (Node<T>[]) new Node<?>[16];
+        private final BitSet emptyLeft = new BitSet();
+        private Node<T> root = null;
+
+        @Override
+        public void startNode(T value, int depth) {
+            if (depth == values.length) {
+                values = Arrays.copyOf(values, depth * 2);
+                lefts = Arrays.copyOf(lefts, depth * 2);
+                rights = Arrays.copyOf(rights, depth * 2);
+            }
+            values[depth] = value;
+            lefts[depth] = null;
+            rights[depth] = null;
+            emptyLeft.clear(depth);
+        }
+
+        @Override
+        public void emptyLeft(int depth) {
+            emptyLeft.set(depth);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void endNode(int depth) {
+            Node<T> node = new Node<>((T) values[depth], lefts[depth], rights[depth]);
+            values[depth] = null;
+            Node<T> canonical = table.putIfAbsent(node, node);
+            if (canonical != null) {
+                node = canonical;
+            }
+            if (depth == 0) {
+                root = node;
+            } else if (lefts[depth - 1] == null && !emptyLeft.get(depth - 1)) {
+                lefts[depth - 1] = node;
+            } else {
+                rights[depth - 1] = node;
+            }
+        }
+    }
+
+    private void build(Builder builder) {
+        this.root = builder.root;
+        this.uniqueNodes = builder.table.size();
+        // емкость таблицы - ближайшая степень двойки, при которой не превышен коэффициент загрузки 0.75
+        long capacity = Long.highestOneBit(Math.max(1, uniqueNodes * 4 / 3)) * 2;
+        this.hashTableBytes = uniqueNodes * HASH_ENTRY_BYTES + capacity * HASH_BUCKET_BYTES;
+    }
+
+    /**
+     * Построение дерева по строке в скобочной нотации с объединением одинаковых поддеревьев.
+     * Таблица канонических узлов нужна только на время загрузки.
+     * @param bracketStr Строка в скобочной нотации
+     * @throws Exception Ошибка разбора
+     */
+    public void fromBracketNotation(String bracketStr) throws Exception {
+        Builder builder = new Builder();
+        new BracketNotationParser<>(valueDecoder).parse(bracketStr, builder);
+        build(builder);
+    }
+
+    /**
+     * @param reader Reader (не закрывается)
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(Reader reader) throws Exception {
+        Builder builder = new Builder();
+        new BracketNotationParser<>(valueDecoder).parse(reader, builder);
+        build(builder);
+    }
+
+    /**
+     * @return Количество узлов дерева (с учетом всех повторов)
+     */
+    public long getNodeCount() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * @return Количество реально хранимых (уникальных) узлов
+     */
+    public long getUniqueNodeCount() {
+        return uniqueNodes;
+    }
+
+    /**
+     * @return Степень сжатия: во сколько раз узлов в дереве больше, чем хранимых узлов
+     */
+    public double getCompressionRatio() {
+        return uniqueNodes == 0 ? 1 : (double) getNodeCount() / uniqueNodes;
+    }
+
+    /**
+     * @return Примерный размер (в байтах) таблицы канонических узлов, потребовавшейся при загрузке
+     */
+    public long getHashTableBytes() {
+        return hashTableBytes;
+    }
+}
@@ -0,0 +1,226 @@
+package com.company;
+
+import java.util.BitSet;
+import java.util.function.Function;
+
+/**
+ * Неявное (без ссылок) представление двоичного дерева: значения хранятся в одном
+ * массиве в порядке обхода в ширину, потомки узла i находятся в ячейках 2i+1 и 2i+2,
+ * а наличие узла в ячейке отмечается битом. Подходит для полных и почти полных
+ * деревьев: нет накладных расходов на ссылки, узлы одного уровня лежат подряд.
+ *
+ * @param <T> Тип значений в узлах
+ */
+public class ImplicitBinaryTree<T> implements SimpleBinaryTreeInterface<T> {
+
+    /**
+     * Максимальная высота, при которой массив еще помещается в int-индексы
+     */
+    public static final int MAX_HEIGHT = 29;
+
+    /**
+     * Доля занятых ячеек по умолчанию, начиная с которой дерево имеет смысл хранить неявно
+     */
+    public static final double DEFAULT_MIN_FILL = 0.5;
+
+    private final Object[] values;
+    private final BitSet present;
+
+    /**
+     * Представление узла с индексом index
+     */
+    protected class NodeView implements SimpleBinaryTreeInterface.TreeNode<T> {
+        protected final int index;
+
+        protected NodeView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public T getValue() {
+            return ImplicitBinaryTree.this.getValue(index);
+        }
+
+        @Override
+        public TreeNode<T> getLeft() {
+            return view(2 * index + 1);
+        }
+
+        @Override
+        public TreeNode<T> getRight() {
+            return view(2 * index + 2);
+        }
+    }
+
+    private ImplicitBinaryTree(int height) {
+        int capacity = height < 0 ? 0 : (1 << (height + 1)) - 1;
+        this.values = new Object[capacity];
+        this.present = new BitSet(capacity);
+    }
+
+    /**
+     * @param height Высота дерева (высота дерева из одного узла - 0)
+     * @param count Количество узлов
+     * @param minFill Минимальная доля занятых ячеек массива
+     * @return Выгодно ли хранить дерево такой формы неявно
+     */
+    public static boolean isSuitable(int height, long count, double minFill) {
+        return height <= MAX_HEIGHT && count >= minFill * ((1L << (height + 1)) - 1);
+    }
+
+    /**
+     * Преобразование дерева в неявное представление, если форма дерева это позволяет
+     * @param tree Исходное дерево
+     * @param minFill Минимальная доля занятых ячеек массива
+     * @param <T> Тип значений в узлах
+     * @return Неявное дерево или null, если дерево слишком разреженное (или высокое)
+     */
+    public static <T> ImplicitBinaryTree<T> fromTree(SimpleBinaryTreeInterface<T> tree, double minFill) {
+        int[] height = {-1};
+        long[] count = {0};
+        tree.byLevelVisit((value, level) -> {
+            height[0] = level;
+            count[0]++;
+        });
+        if (!isSuitable(height[0], count[0], minFill)) {
+            return null;
+        }
+        ImplicitBinaryTree<T> result = new ImplicitBinaryTree<>(height[0]);
+        if (tree.getRoot() == null) {
+            return result;
+        }
+        // обход в ширину с вычислением индекса каждого узла
+        @SuppressWarnings("unchecked")
+        TreeNode<T>[] nodes = (TreeNode<T>[]) new TreeNode<?>[(int) count[0]];
+        int[] indexes = new int[nodes.length];
+        int head = 0;
+        int tail = 0;
+        nodes[tail] = tree.getRoot();
+        indexes[tail++] = 0;
+        while (head < tail) {
+            TreeNode<T> node = nodes[head];
+            int index = indexes[head++];
+            result.values[index] = node.getValue();
+            result.present.set(index);
+            if (node.getLeft() != null) {
+                nodes[tail] = node.getLeft();
+                indexes[tail++] = 2 * index + 1;
+            }
+            if (node.getRight() != null) {
+                nodes[tail] = node.getRight();
+                indexes[tail++] = 2 * index + 2;
+            }
+        }
+        return result;
+    }
+
+    public static <T> ImplicitBinaryTree<T> fromTree(SimpleBinaryTreeInterface<T> tree) {
+        return fromTree(tree, DEFAULT_MIN_FILL);
+    }
+
+    /**
+     * Выбор представления по форме дерева: неявное, если оно выгодно, иначе исходное дерево
+     * @param tree Исходное дерево
+     * @param <T> Тип значений в узлах
+     * @return Неявное дерево или tree
+     */
+    public static <T> SimpleBinaryTreeInterface<T> compact(SimpleBinaryTreeInterface<T> tree) {
+        ImplicitBinaryTree<T> implicit = fromTree(tree);
+        return implicit != null ? implicit : tree;
+    }
+
+    /**
+     * Обратное преобразование в связное представление
+     * @param fromStrFunc Функция конвертации строки в T (для дальнейшей работы с деревом)
+     * @return Дерево SimpleBinaryTree с теми же значениями
+     */
+    public SimpleBinaryTree<T> toSimpleBinaryTree(Function<String, T> fromStrFunc) {
+        SimpleBinaryTree<T> tree = new SimpleBinaryTree<>(fromStrFunc);
+        tree.copyFrom(this);
+        return tree;
+    }
+
+    private boolean isPresent(int index) {
+        return index < values.length && present.get(index);
+    }
+
+    protected TreeNode<T> view(int index) {
+        return isPresent(index) ? new NodeView(index) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getValue(int index) {
+        return (T) values[index];
+    }
+
+    @Override
+    public TreeNode<T> getRoot() {
+        return view(0);
+    }
+
+    /**
+     * @return Количество узлов
+     */
+    public int getNodeCount() {
+        return present.cardinality();
+    }
+
+    /**
+     * @return Размер массива значений
+     */
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /**
+     * Обход по уровням - просто проход по массиву (уровень узла i равен log2(i + 1))
+     *
+     * @param visitor Посетитель
+     */
+    @Override
+    public void byLevelVisit(Visitor<T> visitor) {
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            visitor.visit(getValue(i), 31 - Integer.numberOfLeadingZeros(i + 1));
+        }
+    }
+
+    /**
+     * Обход в симметричном порядке без стека: родитель узла i вычисляется как (i - 1) / 2
+     *
+     * @param visitor Посетитель
+     */
+    @Override
+    public void inOrderVisit(Visitor<T> visitor) {
+        if (!isPresent(0)) {
+            return;
+        }
+        int i = 0;
+        int level = 0;
+        while (isPresent(2 * i + 1)) {
+            i = 2 * i + 1;
+            level++;
+        }
+        while (true) {
+            visitor.visit(getValue(i), level);
+            if (isPresent(2 * i + 2)) {
+                i = 2 * i + 2;
+                level++;
+                while (isPresent(2 * i + 1)) {
+                    i = 2 * i + 1;
+                    level++;
+                }
+            } else {
+                // поднимаемся, пока приходим из правого поддерева
+                while (i > 0 && i % 2 == 0) {
+                    i = (i - 1) / 2;
+                    level--;
+                }
+                if (i == 0) {
+                    return;
+                }
+                i = (i - 1) / 2;
+                level--;
+            }
+        }
+    }
+}
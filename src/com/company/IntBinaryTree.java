@@ -0,0 +1,106 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * Двоичное дерево целых чисел, хранящее узлы не объектами, а в параллельных
+ * массивах int[] (значение, индекс левого и индекс правого потомка).
+ * Узел занимает 12 байт (плюс незанятый запас емкости массивов и, если оно включено,
+ * запасное хранилище - см. setSpareStorageEnabled) против объекта SimpleTreeNode с упакованным Integer,
+ * узлы лежат в памяти подряд (в порядке прямого обхода при загрузке).
+ */
+public class IntBinaryTree extends AbstractIntBinaryTree {
+
+    private int[] values;
+    private int[] lefts;
+    private int[] rights;
+    private int size = 0;
+
+    public IntBinaryTree(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+        lefts = new int[values.length];
+        rights = new int[values.length];
+    }
+
+    public IntBinaryTree() {
+        this(16);
+    }
+
+    @Override
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int getLeftIndex(int index) {
+        return lefts[index];
+    }
+
+    @Override
+    public int getRightIndex(int index) {
+        return rights[index];
+    }
+
+    @Override
+    protected void setValue(int index, int value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void setLeftIndex(int index, int left) {
+        lefts[index] = left;
+    }
+
+    @Override
+    protected void setRightIndex(int index, int right) {
+        rights[index] = right;
+    }
+
+    /**
+     * @return Количество занятых ячеек массивов (включая узлы, удаленные из дерева)
+     */
+    public int getCapacityUsed() {
+        return size;
+    }
+
+    @Override
+    protected int addNode(int value) {
+        if (size == values.length) {
+            int capacity = values.length * 2;
+            values = Arrays.copyOf(values, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+        }
+        values[size] = value;
+        lefts[size] = NIL;
+        rights[size] = NIL;
+        return size++;
+    }
+
+    @Override
+    protected void resetNodes() {
+        size = 0;
+    }
+
+    @Override
+    protected AbstractIntBinaryTree newStorage() {
+        return new IntBinaryTree();
+    }
+
+    @Override
+    protected void swapStorage(AbstractIntBinaryTree other) {
+        IntBinaryTree o = (IntBinaryTree) other;
+        int[] t = values;
+        values = o.values;
+        o.values = t;
+        t = lefts;
+        lefts = o.lefts;
+        o.lefts = t;
+        t = rights;
+        rights = o.rights;
+        o.rights = t;
+        int n = size;
+        size = o.size;
+        o.size = n;
+    }
+}
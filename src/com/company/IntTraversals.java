@@ -0,0 +1,55 @@
+package com.company;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * Обходы деревьев целых чисел с посетителем IntVisitor и итератором PrimitiveIterator.OfInt.
+ * Для AbstractIntBinaryTree (IntBinaryTree, OffHeapIntBinaryTree) значения читаются
+ * прямо из хранилища узлов, для остальных деревьев (например, SimpleBinaryTree&lt;Integer&gt;)
+ * Integer узла распаковывается, но при обходе ничего не создается (кроме курсора).
+ */
+public final class IntTraversals {
+
+    private IntTraversals() {
+    }
+
+    /**
+     * @param tree Дерево
+     * @param order Порядок обхода
+     * @param visitor Посетитель
+     */
+    public static void visit(SimpleBinaryTreeInterface<Integer> tree, SimpleBinaryTreeInterface.Order order,
+                             SimpleBinaryTreeInterface.IntVisitor visitor) {
+        if (tree instanceof AbstractIntBinaryTree) {
+            ((AbstractIntBinaryTree) tree).visitInts(order, visitor);
+            return;
+        }
+        TraversalCursor<Integer> cursor = tree.cursor(order);
+        while (cursor.next()) {
+            visitor.visit(cursor.value(), cursor.level());
+        }
+    }
+
+    /**
+     * @param tree Дерево
+     * @param order Порядок обхода
+     * @return Итератор значений без упаковки
+     */
+    public static PrimitiveIterator.OfInt iterator(SimpleBinaryTreeInterface<Integer> tree, SimpleBinaryTreeInterface.Order order) {
+        if (tree instanceof AbstractIntBinaryTree) {
+            return ((AbstractIntBinaryTree) tree).intIterator(order);
+        }
+        TraversalCursor<Integer> cursor = tree.cursor(order);
+        return cursor.intIterator(cursor::value);
+    }
+
+    /**
+     * @param tree Дерево
+     * @return Сумма значений всех узлов
+     */
+    public static long sum(SimpleBinaryTreeInterface<Integer> tree) {
+        long[] sum = {0};
+        visit(tree, SimpleBinaryTreeInterface.Order.PRE_ORDER, (value, level) -> sum[0] += value);
+        return sum[0];
+    }
+}
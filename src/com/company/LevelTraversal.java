@@ -0,0 +1,275 @@
+package com.company;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Обход дерева в ширину по уровням целиком: текущий уровень (фронт) лежит в одном
+ * массиве, следующий собирается во втором, затем массивы меняются ролями.
+ * Обертки для узлов не создаются, массивы сохраняются между обходами,
+ * поэтому один объект LevelTraversal выгодно использовать многократно.
+ * Объект не потокобезопасен.
+ *
+ * @param <T> Тип значений в узлах
+ */
+public class LevelTraversal<T> {
+
+    /**
+     * Посетитель уровня
+     */
+    @FunctionalInterface
+    public interface LevelVisitor<T> {
+        /**
+         * @param nodes Узлы уровня слева направо (представление действительно только во время вызова)
+         * @param level Номер уровня (у корня - 0)
+         */
+        void visit(List<SimpleBinaryTreeInterface.TreeNode<T>> nodes, int level);
+    }
+
+    private SimpleBinaryTreeInterface.TreeNode<T>[] frontier;
+    private SimpleBinaryTreeInterface.TreeNode<T>[] next;
+    private int size = 0;
+
+    private final Frontier view = new Frontier();
+
+    /**
+     * Представление текущего уровня в виде списка (только для чтения)
+     */
+    private class Frontier extends AbstractList<SimpleBinaryTreeInterface.TreeNode<T>> implements RandomAccess {
+        @Override
+        public SimpleBinaryTreeInterface.TreeNode<T> get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return frontier[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    public LevelTraversal() {
+        frontier = newNodeArray(16);
+        next = newNodeArray(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> SimpleBinaryTreeInterface.TreeNode<T>[] newNodeArray(int capacity) {
+        return (SimpleBinaryTreeInterface.TreeNode<T>[]) new SimpleBinaryTreeInterface.TreeNode<?>[capacity];
+    }
+
+    /**
+     * Построение следующего уровня по текущему
+     * @return Размер следующего уровня (он становится текущим)
+     */
+    private int advance() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            SimpleBinaryTreeInterface.TreeNode<T> node = frontier[i];
+            SimpleBinaryTreeInterface.TreeNode<T> left = node.getLeft();
+            SimpleBinaryTreeInterface.TreeNode<T> right = node.getRight();
+            if (n + 2 > next.length) {
+                next = Arrays.copyOf(next, Math.max(next.length * 2, n + 2));
+            }
+            if (left != null) {
+                next[n++] = left;
+            }
+            if (right != null) {
+                next[n++] = right;
+            }
+        }
+        Arrays.fill(frontier, 0, size, null);
+        SimpleBinaryTreeInterface.TreeNode<T>[] t = frontier;
+        frontier = next;
+        next = t;
+        size = n;
+        return n;
+    }
+
+    private void start(SimpleBinaryTreeInterface.TreeNode<T> root) {
+        Arrays.fill(frontier, 0, size, null);
+        size = 0;
+        if (root != null) {
+            frontier[size++] = root;
+        }
+    }
+
+    /**
+     * Обход по уровням с вызовом посетителя для каждого уровня
+     * @param root Корень (под)дерева
+     * @param visitor Посетитель уровней
+     */
+    public void visitLevels(SimpleBinaryTreeInterface.TreeNode<T> root, LevelVisitor<T> visitor) {
+        start(root);
+        try {
+            for (int level = 0; size > 0; level++) {
+                visitor.visit(view, level);
+                advance();
+            }
+        } finally {
+            start(null);
+        }
+    }
+
+    /**
+     * Обход по уровням с вызовом посетителя для каждого узла (в том же порядке,
+     * что и обход с очередью: уровень за уровнем, слева направо)
+     * @param root Корень (под)дерева
+     * @param visitor Посетитель
+     */
+    public void visit(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor) {
+        start(root);
+        try {
+            for (int level = 0; size > 0; level++) {
+                for (int i = 0; i < size; i++) {
+                    visitor.visit(frontier[i].getValue(), level);
+                }
+                advance();
+            }
+        } finally {
+            start(null);
+        }
+    }
+
+    /**
+     * Минимальный размер части уровня, обрабатываемой одной задачей при параллельном обходе
+     */
+    public static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * Обработка частей уровня [from, to) (номера частей по chunkSize узлов):
+     * подсчет потомков (и, если задан посетитель, посещение узлов) или запись потомков в next
+     */
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final int[] offsets;
+        private final boolean write;
+        private final SimpleBinaryTreeInterface.Visitor<T> visitor;
+        private final int level;
+
+        ChunkTask(int from, int to, int chunkSize, int[] offsets, boolean write,
+                  SimpleBinaryTreeInterface.Visitor<T> visitor, int level) {
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.offsets = offsets;
+            this.write = write;
+            this.visitor = visitor;
+            this.level = level;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(from, mid, chunkSize, offsets, write, visitor, level),
+                        new ChunkTask(mid, to, chunkSize, offsets, write, visitor, level));
+                return;
+            }
+            int end = Math.min(size, (from + 1) * chunkSize);
+            if (write) {
+                int n = offsets[from];
+                for (int i = from * chunkSize; i < end; i++) {
+                    SimpleBinaryTreeInterface.TreeNode<T> node = frontier[i];
+                    if (node.getLeft() != null) {
+                        next[n++] = node.getLeft();
+                    }
+                    if (node.getRight() != null) {
+                        next[n++] = node.getRight();
+                    }
+                }
+            } else {
+                int n = 0;
+                for (int i = from * chunkSize; i < end; i++) {
+                    SimpleBinaryTreeInterface.TreeNode<T> node = frontier[i];
+                    if (visitor != null) {
+                        visitor.visit(node.getValue(), level);
+                    }
+                    n += (node.getLeft() != null ? 1 : 0) + (node.getRight() != null ? 1 : 0);
+                }
+                offsets[from + 1] = n;
+            }
+        }
+    }
+
+    /**
+     * Параллельный обход по уровням: каждый широкий уровень делится на части, которые
+     * обрабатываются в пуле потоков, и следующий уровень собирается в массив параллельно
+     * (сначала считается количество потомков в каждой части, затем части пишут своих
+     * потомков каждая со своего смещения). Уровни проходятся строго по очереди,
+     * узкие уровни (меньше 2 * threshold узлов) обрабатываются в вызывающем потоке.
+     * @param root Корень (под)дерева
+     * @param visitor Посетитель. Если ordered == false, вызывается одновременно из разных потоков
+     *                и должен быть потокобезопасным
+     * @param ordered true - посетитель вызывается в вызывающем потоке слева направо в пределах уровня
+     *                (параллельно строится только следующий уровень)
+     * @param pool Пул потоков
+     * @param threshold Размер части уровня
+     */
+    public void visitParallel(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor,
+                              boolean ordered, ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold должен быть положительным");
+        }
+        start(root);
+        try {
+            for (int level = 0; size > 0; level++) {
+                if (size < threshold * 2) {
+                    for (int i = 0; i < size; i++) {
+                        visitor.visit(frontier[i].getValue(), level);
+                    }
+                    advance();
+                    continue;
+                }
+                int chunks = (size + threshold - 1) / threshold;
+                int[] offsets = new int[chunks + 1];
+                if (ordered) {
+                    // подсчет потомков идет в пуле, пока уровень посещается в этом потоке
+                    ForkJoinTask<Void> count = pool.submit(new ChunkTask(0, chunks, threshold, offsets, false, null, level));
+                    try {
+                        for (int i = 0; i < size; i++) {
+                            visitor.visit(frontier[i].getValue(), level);
+                        }
+                    } finally {
+                        // массивы уровня нельзя освобождать, пока задача их читает
+                        count.quietlyJoin();
+                    }
+                    count.join();
+                } else {
+                    pool.invoke(new ChunkTask(0, chunks, threshold, offsets, false, visitor, level));
+                }
+                for (int c = 0; c < chunks; c++) {
+                    offsets[c + 1] += offsets[c];
+                }
+                int n = offsets[chunks];
+                if (n > next.length) {
+                    next = Arrays.copyOf(next, Math.max(next.length * 2, n));
+                }
+                pool.invoke(new ChunkTask(0, chunks, threshold, offsets, true, null, level));
+                Arrays.fill(frontier, 0, size, null);
+                SimpleBinaryTreeInterface.TreeNode<T>[] t = frontier;
+                frontier = next;
+                next = t;
+                size = n;
+            }
+        } finally {
+            start(null);
+        }
+    }
+
+    public void visitParallel(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor,
+                              boolean ordered) {
+        visitParallel(root, visitor, ordered, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
+}
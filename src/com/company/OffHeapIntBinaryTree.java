@@ -0,0 +1,245 @@
+package com.company;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Двоичное дерево целых чисел, узлы которого хранятся вне кучи Java - в страницах
+ * временного файла, отображенных в память (FileChannel.map). Каждый узел - запись
+ * из 12 байт (значение, индекс левого и индекс правого потомка); записи выделяются
+ * страницами, поэтому общий объем не ограничен 2 ГБ одного буфера. Сборщик мусора
+ * узлы не видит и не обходит.
+ * В отличие от прямых буферов (ByteBuffer.allocateDirect), отображенные страницы не
+ * учитываются в лимите -XX:MaxDirectMemorySize (по умолчанию равном размеру кучи),
+ * поэтому дерево может быть больше кучи без дополнительных флагов JVM. Объем ограничен
+ * местом в каталоге временных файлов (если это не tmpfs - ядро может сбрасывать страницы
+ * на диск). Файл удаляется сразу после создания (в Windows - при закрытии).
+ * Метод close() закрывает файл, после чего дерево использовать нельзя; память страниц
+ * освобождается не сразу, а при сборке мусора (см. close()).
+ */
+public class OffHeapIntBinaryTree extends AbstractIntBinaryTree implements AutoCloseable {
+
+    private static final int RECORD_BYTES = 12;
+    private static final int VALUE_OFFSET = 0;
+    private static final int LEFT_OFFSET = 4;
+    private static final int RIGHT_OFFSET = 8;
+
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_RECORDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_RECORDS - 1;
+    private static final long PAGE_BYTES = (long) PAGE_RECORDS * RECORD_BYTES;
+
+    // каталог временного файла страниц
+    private final Path directory;
+    // файл страниц (открывается при выделении первой страницы)
+    private FileChannel channel = null;
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    private int pageCount = 0;
+    private int size = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * @param directory Каталог для временного файла страниц
+     */
+    public OffHeapIntBinaryTree(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Дерево со страницами во временном файле в java.io.tmpdir
+     */
+    public OffHeapIntBinaryTree() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    private ByteBuffer page(int index) {
+        ByteBuffer page = pages[index >>> PAGE_SHIFT];
+        if (page == null) {
+            // страницы отпущены методом close() (или индекс за пределами выделенных страниц)
+            throw closed ? new IllegalStateException("Дерево уже закрыто") : new IndexOutOfBoundsException(index);
+        }
+        return page;
+    }
+
+    private static int offset(int index) {
+        return (index & PAGE_MASK) * RECORD_BYTES;
+    }
+
+    @Override
+    public int getValue(int index) {
+        return page(index).getInt(offset(index) + VALUE_OFFSET);
+    }
+
+    @Override
+    public int getLeftIndex(int index) {
+        return page(index).getInt(offset(index) + LEFT_OFFSET);
+    }
+
+    @Override
+    public int getRightIndex(int index) {
+        return page(index).getInt(offset(index) + RIGHT_OFFSET);
+    }
+
+    @Override
+    protected void setValue(int index, int value) {
+        page(index).putInt(offset(index) + VALUE_OFFSET, value);
+    }
+
+    @Override
+    protected void setLeftIndex(int index, int left) {
+        page(index).putInt(offset(index) + LEFT_OFFSET, left);
+    }
+
+    @Override
+    protected void setRightIndex(int index, int right) {
+        page(index).putInt(offset(index) + RIGHT_OFFSET, right);
+    }
+
+    @Override
+    protected int addNode(int value) {
+        if (closed) {
+            throw new IllegalStateException("Дерево уже закрыто");
+        }
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Превышено максимальное количество узлов");
+        }
+        if ((size >>> PAGE_SHIFT) == pageCount) {
+            if (pageCount == pages.length) {
+                pages = Arrays.copyOf(pages, Math.max(4, pageCount * 2));
+            }
+            pages[pageCount] = mapPage(pageCount);
+            pageCount++;
+        }
+        ByteBuffer page = pages[size >>> PAGE_SHIFT];
+        int offset = offset(size);
+        page.putInt(offset + VALUE_OFFSET, value);
+        page.putInt(offset + LEFT_OFFSET, NIL);
+        page.putInt(offset + RIGHT_OFFSET, NIL);
+        return size++;
+    }
+
+    /**
+     * Отображение в память страницы с номером index (файл увеличивается до конца страницы)
+     */
+    private ByteBuffer mapPage(int index) {
+        try {
+            if (channel == null) {
+                Path file = Files.createTempFile(directory, "offheap-tree", ".pages");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                try {
+                    // открытый (и отображенный) файл продолжает существовать без имени
+                    Files.delete(file);
+                } catch (IOException ex) {
+                    // Windows: открытый файл не удаляется, его удалит закрытие канала
+                }
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, index * PAGE_BYTES, PAGE_BYTES)
+                    .order(ByteOrder.nativeOrder());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Записи освобождаются все сразу, но страницы остаются выделенными для повторного использования
+     */
+    @Override
+    protected void resetNodes() {
+        size = 0;
+    }
+
+    @Override
+    protected AbstractIntBinaryTree newStorage() {
+        if (closed) {
+            throw new IllegalStateException("Дерево уже закрыто");
+        }
+        return new OffHeapIntBinaryTree(directory);
+    }
+
+    @Override
+    protected void swapStorage(AbstractIntBinaryTree other) {
+        if (closed) {
+            throw new IllegalStateException("Дерево уже закрыто");
+        }
+        OffHeapIntBinaryTree o = (OffHeapIntBinaryTree) other;
+        FileChannel c = channel;
+        channel = o.channel;
+        o.channel = c;
+        ByteBuffer[] t = pages;
+        pages = o.pages;
+        o.pages = t;
+        int n = pageCount;
+        pageCount = o.pageCount;
+        o.pageCount = n;
+        n = size;
+        size = o.size;
+        o.size = n;
+    }
+
+    @Override
+    protected void discardStorage(AbstractIntBinaryTree storage) {
+        ((OffHeapIntBinaryTree) storage).close();
+    }
+
+    /**
+     * @return Количество байт вне кучи, занятых страницами записей (вместе с запасным хранилищем)
+     */
+    public long getOffHeapBytes() {
+        long bytes = pageCount * PAGE_BYTES;
+        if (spareStorage != null) {
+            bytes += ((OffHeapIntBinaryTree) spareStorage).getOffHeapBytes();
+        }
+        return bytes;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Закрытие дерева: страницы отпускаются, файл страниц закрывается (и удаляется).
+     * Память отображенных страниц возвращается системе, когда сборщик мусора соберет
+     * буферы: Java 17 не позволяет отменить отображение без sun.misc.Unsafe, а явное
+     * освобождение могло бы обрушить обходы в других потоках, успевшие получить страницу. Такие обходы дочитывают
+     * ее корректно, а следующие обращения получают IllegalStateException.
+     * @throws UncheckedIOException Ошибка закрытия файла (дерево все равно закрывается)
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = null;
+        }
+        pageCount = 0;
+        size = 0;
+        root = NIL;
+        try {
+            if (spareStorage != null) {
+                ((OffHeapIntBinaryTree) spareStorage).close();
+                spareStorage = null;
+            }
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                } finally {
+                    channel = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Параллельные обходы дерева в ForkJoinPool для посетителей, выполняющих заметную
+ * работу в каждом узле. Поддеревья узлов, лежащих выше уровня forkDepth, обрабатываются
+ * отдельными задачами, ниже - последовательно (итеративно, через TraversalCursor).
+ * Посетитель получает тот же уровень, что и при последовательном обходе.
+ */
+public final class ParallelTreeVisits {
+
+    private ParallelTreeVisits() {
+    }
+
+    /**
+     * Сборка результата узла из результатов его поддеревьев (обратный порядок)
+     *
+     * @param <T> Тип значений в узлах
+     * @param <R> Тип результата
+     */
+    @FunctionalInterface
+    public interface Combiner<T, R> {
+        /**
+         * @param value Значение узла
+         * @param level Уровень узла
+         * @param left Результат левого поддерева (для пустого - empty)
+         * @param right Результат правого поддерева (для пустого - empty)
+         * @return Результат поддерева узла
+         */
+        R combine(T value, int level, R left, R right);
+    }
+
+    /**
+     * @param pool Пул потоков
+     * @return Уровень, начиная с которого поддеревья обходятся последовательно
+     * (примерно по 16 задач на поток в полном дереве)
+     */
+    public static int defaultForkDepth(ForkJoinPool pool) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(pool.getParallelism() - 1, 1)) + 4;
+    }
+
+    private static class VisitTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SimpleBinaryTreeInterface.TreeNode<T> node;
+        private final int level;
+        private final SimpleBinaryTreeInterface.Visitor<T> visitor;
+        private final boolean preOrder;
+        private final int forkDepth;
+
+        VisitTask(SimpleBinaryTreeInterface.TreeNode<T> node, int level, SimpleBinaryTreeInterface.Visitor<T> visitor,
+                  boolean preOrder, int forkDepth) {
+            this.node = node;
+            this.level = level;
+            this.visitor = visitor;
+            this.preOrder = preOrder;
+            this.forkDepth = forkDepth;
+        }
+
+        @Override
+        protected void compute() {
+            if (level >= forkDepth) {
+                TraversalCursor<T> cursor = new TraversalCursor<>(node,
+                        preOrder ? SimpleBinaryTreeInterface.Order.PRE_ORDER : SimpleBinaryTreeInterface.Order.POST_ORDER);
+                while (cursor.next()) {
+                    visitor.visit(cursor.value(), level + cursor.level());
+                }
+                return;
+            }
+            if (preOrder) {
+                visitor.visit(node.getValue(), level);
+            }
+            SimpleBinaryTreeInterface.TreeNode<T> left = node.getLeft();
+            SimpleBinaryTreeInterface.TreeNode<T> right = node.getRight();
+            if (left != null && right != null) {
+                invokeAll(new VisitTask<>(left, level + 1, visitor, preOrder, forkDepth),
+                        new VisitTask<>(right, level + 1, visitor, preOrder, forkDepth));
+            } else if (left != null || right != null) {
+                new VisitTask<>(left != null ? left : right, level + 1, visitor, preOrder, forkDepth).compute();
+            }
+            if (!preOrder) {
+                visitor.visit(node.getValue(), level);
+            }
+        }
+    }
+
+    private static class ReduceTask<T, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final SimpleBinaryTreeInterface.TreeNode<T> node;
+        private final int level;
+        private final Combiner<T, R> combiner;
+        private final R empty;
+        private final int forkDepth;
+
+        ReduceTask(SimpleBinaryTreeInterface.TreeNode<T> node, int level, Combiner<T, R> combiner, R empty, int forkDepth) {
+            this.node = node;
+            this.level = level;
+            this.combiner = combiner;
+            this.empty = empty;
+            this.forkDepth = forkDepth;
+        }
+
+        @Override
+        protected R compute() {
+            if (node == null) {
+                return empty;
+            }
+            if (level >= forkDepth) {
+                return reduceSequential(node, level, combiner, empty);
+            }
+            ForkJoinTask<R> leftTask = null;
+            if (node.getLeft() != null) {
+                leftTask = new ReduceTask<>(node.getLeft(), level + 1, combiner, empty, forkDepth).fork();
+            }
+            R right = new ReduceTask<>(node.getRight(), level + 1, combiner, empty, forkDepth).compute();
+            R left = leftTask == null ? empty : leftTask.join();
+            return combiner.combine(node.getValue(), level, left, right);
+        }
+    }
+
+    /**
+     * Итеративная свертка поддерева в обратном порядке: результаты поддеревьев
+     * лежат в стеке, при посещении узла снимаются результаты его потомков
+     */
+    @SuppressWarnings("unchecked")
+    private static <T, R> R reduceSequential(SimpleBinaryTreeInterface.TreeNode<T> root, int level,
+                                             Combiner<T, R> combiner, R empty) {
+        TraversalCursor<T> cursor = new TraversalCursor<>(root, SimpleBinaryTreeInterface.Order.POST_ORDER);
+        Object[] results = new Object[16];
+        int top = 0;
+        while (cursor.next()) {
+            SimpleBinaryTreeInterface.TreeNode<T> node = cursor.node();
+            R right = node.getRight() != null ? (R) results[--top] : empty;
+            R left = node.getLeft() != null ? (R) results[--top] : empty;
+            if (top == results.length) {
+                results = Arrays.copyOf(results, top * 2);
+            }
+            results[top++] = combiner.combine(node.getValue(), level + cursor.level(), left, right);
+        }
+        return (R) results[0];
+    }
+
+    /**
+     * Параллельный прямой обход: узел посещается раньше своих потомков, но поддеревья
+     * обходятся одновременно, поэтому общий порядок вызовов не определен
+     * @param root Корень (под)дерева
+     * @param visitor Потокобезопасный посетитель
+     * @param pool Пул потоков
+     * @param forkDepth Поддеревья узлов на этом уровне и ниже обходятся последовательно
+     */
+    public static <T> void preOrderVisit(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor,
+                                         ForkJoinPool pool, int forkDepth) {
+        if (root != null) {
+            pool.invoke(new VisitTask<>(root, 0, visitor, true, forkDepth));
+        }
+    }
+
+    /**
+     * Параллельный обратный обход: узел посещается после того, как полностью обойдены оба его поддерева
+     * @param root Корень (под)дерева
+     * @param visitor Потокобезопасный посетитель
+     * @param pool Пул потоков
+     * @param forkDepth Поддеревья узлов на этом уровне и ниже обходятся последовательно
+     */
+    public static <T> void postOrderVisit(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor,
+                                          ForkJoinPool pool, int forkDepth) {
+        if (root != null) {
+            pool.invoke(new VisitTask<>(root, 0, visitor, false, forkDepth));
+        }
+    }
+
+    /**
+     * Параллельная свертка дерева снизу вверх (например, суммы или хеши поддеревьев)
+     * @param root Корень (под)дерева
+     * @param combiner Сборка результата узла (вызывается из разных потоков)
+     * @param empty Результат для пустого поддерева
+     * @param pool Пул потоков
+     * @param forkDepth Поддеревья узлов на этом уровне и ниже сворачиваются последовательно
+     * @return Результат для всего дерева (empty - для пустого)
+     */
+    public static <T, R> R postOrderReduce(SimpleBinaryTreeInterface.TreeNode<T> root, Combiner<T, R> combiner, R empty,
+                                           ForkJoinPool pool, int forkDepth) {
+        return pool.invoke(new ReduceTask<>(root, 0, combiner, empty, forkDepth));
+    }
+}
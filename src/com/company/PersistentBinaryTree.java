@@ -0,0 +1,260 @@
+package com.company;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Персистентное (неизменяемое) двоичное дерево. Любое изменение возвращает новую
+ * версию дерева, в которой скопированы только узлы на пути от корня до места
+ * изменения, а все остальные поддеревья общие со старой версией. Поэтому снимок
+ * дерева - это просто ссылка на версию (O(1)), а читатели старых версий никак
+ * не мешают тем, кто создает новые, и никого не блокируют.
+ * Путь к узлу задается строкой из символов 'L' и 'R' ("" - корень).
+ *
+ * @param <T> Тип значений в узлах
+ */
+public final class PersistentBinaryTree<T> implements SimpleBinaryTreeInterface<T> {
+
+    /**
+     * Неизменяемый узел
+     */
+    public static final class Node<T> implements SimpleBinaryTreeInterface.TreeNode<T> {
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+
+        public Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public Node<T> getLeft() {
+            return left;
+        }
+
+        @Override
+        public Node<T> getRight() {
+            return right;
+        }
+    }
+
+    private static final PersistentBinaryTree<?> EMPTY = new PersistentBinaryTree<>(null);
+
+    private final Node<T> root;
+
+    private PersistentBinaryTree(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * @return Пустое дерево
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentBinaryTree<T> empty() {
+        return (PersistentBinaryTree<T>) EMPTY;
+    }
+
+    /**
+     * @param root Корень (узлы неизменяемы, поэтому могут быть общими у нескольких деревьев)
+     * @return Дерево с данным корнем
+     */
+    public static <T> PersistentBinaryTree<T> of(Node<T> root) {
+        return root == null ? empty() : new PersistentBinaryTree<>(root);
+    }
+
+    /**
+     * Построение персистентного дерева по любому другому дереву (копирование за O(n),
+     * итеративное, в обратном порядке обхода - потомки создаются раньше родителя)
+     * @param tree Исходное дерево
+     * @return Персистентная копия
+     */
+    public static <T> PersistentBinaryTree<T> copyOf(SimpleBinaryTreeInterface<T> tree) {
+        if (tree instanceof PersistentBinaryTree) {
+            return (PersistentBinaryTree<T>) tree;
+        }
+        TreeNode<T> src = tree.getRoot();
+        if (src == null) {
+            return empty();
+        }
+        // стек исходных узлов и уже построенных копий их поддеревьев
+        ArrayDeque<TreeNode<T>> stack = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        ArrayList<Node<T>> built = new ArrayList<>();
+        stack.push(src);
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            TreeNode<T> node = stack.peek();
+            if (!expanded.peek()) {
+                expanded.pop();
+                expanded.push(true);
+                if (node.getRight() != null) {
+                    stack.push(node.getRight());
+                    expanded.push(false);
+                }
+                if (node.getLeft() != null) {
+                    stack.push(node.getLeft());
+                    expanded.push(false);
+                }
+                continue;
+            }
+            stack.pop();
+            expanded.pop();
+            Node<T> right = node.getRight() != null ? built.remove(built.size() - 1) : null;
+            Node<T> left = node.getLeft() != null ? built.remove(built.size() - 1) : null;
+            built.add(new Node<>(node.getValue(), left, right));
+        }
+        return new PersistentBinaryTree<>(built.get(0));
+    }
+
+    @Override
+    public Node<T> getRoot() {
+        return root;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @param path Путь к узлу из символов 'L'/'R'
+     * @return Узел или null, если такого узла нет
+     */
+    public Node<T> get(String path) {
+        Node<T> node = root;
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = step(node, path.charAt(i));
+        }
+        return node;
+    }
+
+    private static <T> Node<T> step(Node<T> node, char direction) {
+        if (direction == 'L') {
+            return node.left;
+        }
+        if (direction == 'R') {
+            return node.right;
+        }
+        throw new IllegalArgumentException("Путь может содержать только символы 'L' и 'R': " + direction);
+    }
+
+    /**
+     * Функция, строящая новое поддерево вместо старого
+     */
+    @FunctionalInterface
+    private interface Replacement<T> {
+        Node<T> apply(Node<T> old);
+    }
+
+    /**
+     * Копирование пути от корня до узла path с заменой этого узла
+     */
+    private PersistentBinaryTree<T> replace(String path, Replacement<T> replacement) {
+        // узлы на пути (старые версии)
+        @SuppressWarnings("unchecked")
+        Node<T>[] nodes = (Node<T>[]) new Node<?>[path.length() + 1];
+        nodes[0] = root;
+        for (int i = 0; i < path.length(); i++) {
+            if (nodes[i] == null) {
+                throw new IllegalArgumentException("Нет узла на пути " + path.substring(0, i));
+            }
+            nodes[i + 1] = step(nodes[i], path.charAt(i));
+        }
+        Node<T> node = replacement.apply(nodes[path.length()]);
+        if (node == nodes[path.length()]) {
+            return this;
+        }
+        for (int i = path.length() - 1; i >= 0; i--) {
+            Node<T> old = nodes[i];
+            node = path.charAt(i) == 'L' ? new Node<>(old.value, node, old.right) : new Node<>(old.value, old.left, node);
+        }
+        return of(node);
+    }
+
+    /**
+     * @return Новая версия, в которой у узла path значение value
+     */
+    public PersistentBinaryTree<T> withValue(String path, T value) {
+        return replace(path, old -> {
+            if (old == null) {
+                throw new IllegalArgumentException("Нет узла на пути " + path);
+            }
+            return new Node<>(value, old.left, old.right);
+        });
+    }
+
+    /**
+     * @return Новая версия, в которой вместо поддерева path (возможно, пустого) стоит subtree
+     */
+    public PersistentBinaryTree<T> withSubtree(String path, PersistentBinaryTree<T> subtree) {
+        return replace(path, old -> subtree.root);
+    }
+
+    /**
+     * @return Новая версия, в которой поддерево path заменено листом со значением value
+     */
+    public PersistentBinaryTree<T> withLeaf(String path, T value) {
+        return replace(path, old -> new Node<>(value, null, null));
+    }
+
+    /**
+     * @return Новая версия без поддерева path
+     */
+    public PersistentBinaryTree<T> without(String path) {
+        return replace(path, old -> null);
+    }
+
+    /**
+     * Удаляет узлы, у которых один потомок (потомок занимает место удаленного узла) -
+     * так же, как SimpleBinaryTree.deleteNodesWithOneDescendant за один вызов.
+     * Неизмененные поддеревья остаются общими с текущей версией.
+     * @return Новая версия дерева (или эта же, если изменять нечего)
+     */
+    public PersistentBinaryTree<T> deleteNodesWithOneDescendant() {
+        if (root == null) {
+            return this;
+        }
+        // итеративный обход: узел обрабатывается после своих (новых) потомков
+        ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+        ArrayList<Node<T>> built = new ArrayList<>();
+        stack.push(root);
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.peek();
+            // узел с одним потомком заменяется этим потомком (значение и поддеревья потомка)
+            Node<T> effective = node.left == null && node.right != null ? node.right
+                    : node.right == null && node.left != null ? node.left : node;
+            if (!expanded.peek()) {
+                expanded.pop();
+                expanded.push(true);
+                if (effective.right != null) {
+                    stack.push(effective.right);
+                    expanded.push(false);
+                }
+                if (effective.left != null) {
+                    stack.push(effective.left);
+                    expanded.push(false);
+                }
+                continue;
+            }
+            stack.pop();
+            expanded.pop();
+            Node<T> right = effective.right != null ? built.remove(built.size() - 1) : null;
+            Node<T> left = effective.left != null ? built.remove(built.size() - 1) : null;
+            if (left == effective.left && right == effective.right) {
+                // поддерево не изменилось - используется как есть
+                built.add(effective);
+            } else {
+                built.add(new Node<>(effective.value, left, right));
+            }
+        }
+        return of(built.get(0));
+    }
+}
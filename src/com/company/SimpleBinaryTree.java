@@ -1,5 +1,18 @@
 package com.company;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 
 public class SimpleBinaryTree<T> implements SimpleBinaryTreeInterface<T> { //бинарное дерево
@@ -49,20 +62,82 @@ public class SimpleBinaryTree<T> implements SimpleBinaryTreeInterface<T> { //б
 
     protected SimpleTreeNode root = null;
 
+    /**
+     * Пул узлов, которые освобождаются все сразу (reset), а не собираются сборщиком мусора
+     * по одному. Освобожденные узлы переиспользуются при следующих загрузках дерева.
+     */
+    protected class NodeArena {
+        @SuppressWarnings("unchecked")
+        private SimpleTreeNode[] nodes = (SimpleTreeNode[]) new SimpleBinaryTree<?>.SimpleTreeNode[16];
+        // сколько узлов создано и сколько из них сейчас занято
+        private int allocated = 0;
+        private int used = 0;
+
+        public SimpleTreeNode allocate(T value) {
+            if (used < allocated) {
+                SimpleTreeNode node = nodes[used++];
+                node.value = value;
+                node.left = null;
+                node.right = null;
+                return node;
+            }
+            if (allocated == nodes.length) {
+                nodes = Arrays.copyOf(nodes, allocated * 2);
+            }
+            SimpleTreeNode node = newNode(value);
+            nodes[allocated++] = node;
+            used++;
+            return node;
+        }
+
+        /**
+         * Освобождение всех узлов (ссылки на старые значения сохраняются до повторного использования узла)
+         */
+        public void reset() {
+            used = 0;
+        }
+
+        public int getAllocated() {
+            return allocated;
+        }
+    }
+
+    // пул узлов текущего дерева и пул, в который строится следующее дерево
+    // (чтобы при ошибке разбора текущее дерево осталось нетронутым)
+    private NodeArena arena = null;
+    private NodeArena spareArena = null;
+
     protected Function<String, T> fromStrFunc;
     protected Function<T, String> toStrFunc;
+    // если задан, используется вместо fromStrFunc (значения читаются без промежуточных строк)
+    protected ValueDecoder<T> valueDecoder = null;
+    // декодер для узлов, загруженных fromBracketNotationLazy (хранится в дереве, а не в каждом узле)
+    private ValueDecoder<T> lazyDecoder = null;
 
     public SimpleBinaryTree(Function<String, T> fromStrFunc, Function<T, String> toStrFunc) {
         this.fromStrFunc = fromStrFunc;
         this.toStrFunc = toStrFunc;
     }
 
+    /**
+     * @param valueDecoder Декодер значений узлов (например, ValueDecoder.INT)
+     * @param toStrFunc Функция конвертации T в строку
+     */
+    public SimpleBinaryTree(ValueDecoder<T> valueDecoder, Function<T, String> toStrFunc) {
+        this((Function<String, T>) null, toStrFunc);
+        this.valueDecoder = valueDecoder;
+    }
+
+    public SimpleBinaryTree(ValueDecoder<T> valueDecoder) {
+        this(valueDecoder, x -> x.toString());
+    }
+
     public SimpleBinaryTree(Function<String, T> fromStrFunc) {
         this(fromStrFunc, x -> x.toString());
     }
 
     public SimpleBinaryTree() {
-        this(null);
+        this((Function<String, T>) null);
     }
 
     @Override
@@ -72,94 +147,692 @@ public class SimpleBinaryTree<T> implements SimpleBinaryTreeInterface<T> { //б
 
     public void clear() {
         root = null;
+        if (arena != null) {
+            arena.reset();
+            spareArena.reset();
+            NodeArena t = arena;
+            arena = spareArena;
+            spareArena = t;
+        }
+    }
+
+    /**
+     * Включение/выключение пула узлов. При включенном пуле fromBracketNotation и clear()
+     * переиспользуют узлы предыдущих деревьев, а не оставляют их сборщику мусора.
+     * Внимание: после clear() или повторной загрузки узлы старого дерева, ссылки на которые
+     * могли остаться снаружи (например, у итераторов), будут изменены.
+     * @param enabled Использовать ли пул
+     */
+    public void setNodeArenaEnabled(boolean enabled) {
+        if (enabled && arena == null) {
+            arena = new NodeArena();
+            spareArena = new NodeArena();
+        } else if (!enabled) {
+            arena = null;
+            spareArena = null;
+        }
+    }
+
+    public boolean isNodeArenaEnabled() {
+        return arena != null;
+    }
+
+    /**
+     * Построение копии другого дерева (любой реализации SimpleBinaryTreeInterface).
+     * Копирование итеративное, значения не копируются (переносятся ссылки).
+     * @param other Дерево-образец
+     */
+    public void copyFrom(SimpleBinaryTreeInterface<T> other) {
+        TreeNode<T> otherRoot = other.getRoot();
+        if (otherRoot == null) {
+            root = null;
+            return;
+        }
+        SimpleTreeNode newRoot = newNode(otherRoot.getValue());
+        ArrayDeque<TreeNode<T>> from = new ArrayDeque<>();
+        ArrayDeque<SimpleTreeNode> to = new ArrayDeque<>();
+        from.push(otherRoot);
+        to.push(newRoot);
+        while (!from.isEmpty()) {
+            TreeNode<T> src = from.pop();
+            SimpleTreeNode dst = to.pop();
+            if (src.getLeft() != null) {
+                dst.left = newNode(src.getLeft().getValue());
+                from.push(src.getLeft());
+                to.push(dst.left);
+            }
+            if (src.getRight() != null) {
+                dst.right = newNode(src.getRight().getValue());
+                from.push(src.getRight());
+                to.push(dst.right);
+            }
+        }
+        root = newRoot;
+    }
+
+    /**
+     * @return Парсер скобочной нотации со способом конвертации значений этого дерева
+     */
+    protected BracketNotationParser<T> newParser() {
+        return new BracketNotationParser<>(getValueDecoder());
+    }
+
+    /**
+     * Создание узла при загрузке и копировании дерева (наследники могут подставить свой тип узлов)
+     * @param value Значение
+     * @return Новый узел без потомков
+     */
+    protected SimpleTreeNode newNode(T value) {
+        return new SimpleTreeNode(value);
+    }
+
+    /**
+     * @return Декодер значений узлов (valueDecoder или обертка над fromStrFunc), null - если не задан
+     */
+    protected ValueDecoder<T> getValueDecoder() {
+        if (valueDecoder == null && fromStrFunc != null) {
+            return ValueDecoder.fromFunction(fromStrFunc);
+        }
+        return valueDecoder;
     }
 
-    private T fromStr(String s) throws Exception {
-        s = s.trim();
-        if (s.length() > 0 && s.charAt(0) == '"') {
-            s = s.substring(1);
+    /**
+     * Узел, значение которого декодируется при первом обращении к getValue()
+     * (до этого хранится только положение значения в исходной строке).
+     * Значение декодируется декодером дерева, заданным при загрузке.
+     */
+    protected class LazyTreeNode extends SimpleTreeNode {
+        // null - значение декодировано; запись source = null публикует записанное перед ней value
+        private volatile CharSequence source;
+        private final int from;
+        private final int to;
+
+        public LazyTreeNode(CharSequence source, int from, int to) {
+            super(null);
+            this.source = source;
+            this.from = from;
+            this.to = to;
         }
-        if (s.length() > 0 && s.charAt(s.length() - 1) == '"') {
-            s = s.substring(0, s.length() - 1);
+
+        /**
+         * @return Декодировано ли уже значение узла
+         */
+        public boolean isDecoded() {
+            return source == null;
         }
-        if (fromStrFunc == null) {
+
+        @Override
+        public T getValue() {
+            // при одновременном первом обращении из нескольких потоков значение может быть
+            // декодировано несколько раз, но результат будет одинаковым; поток, увидевший
+            // source == null, видит и значение, записанное до обнуления source
+            CharSequence s = source;
+            if (s != null) {
+                T decoded = lazyDecoder.decode(s, from, to);
+                value = decoded;
+                source = null;
+                return decoded;
+            }
+            return value;
+        }
+
+        @Override
+        public void setValue(T value) {
+            this.value = value;
+            source = null;
+        }
+    }
+
+    /**
+     * Построение дерева по событиям BracketNotationParser
+     * @param <V> Тип значений, получаемых от парсера
+     */
+    private class TreeBuilder<V> implements BracketNotationHandler<V> {
+        private final Function<V, SimpleTreeNode> nodeFactory;
+        public SimpleTreeNode root = null;
+        // узлы на пути от корня до текущего узла
+        private final ArrayList<SimpleTreeNode> path = new ArrayList<>();
+        // узлы пути, у которых пропущено левое поддерево
+        private final BitSet emptyLeft = new BitSet();
+
+        TreeBuilder(Function<V, SimpleTreeNode> nodeFactory) {
+            this.nodeFactory = nodeFactory;
+        }
+
+        @Override
+        public void startNode(V value, int depth) {
+            SimpleTreeNode node = nodeFactory.apply(value);
+            if (depth == 0) {
+                root = node;
+            } else {
+                SimpleTreeNode parent = path.get(depth - 1);
+                if (parent.left == null && !emptyLeft.get(depth - 1)) {
+                    parent.left = node;
+                } else {
+                    parent.right = node;
+                }
+            }
+            if (depth == path.size()) {
+                path.add(node);
+            } else {
+                path.set(depth, node);
+            }
+            emptyLeft.clear(depth);
+        }
+
+        @Override
+        public void emptyLeft(int depth) {
+            emptyLeft.set(depth);
+        }
+    }
+
+    /**
+     * Построение дерева по символам из источника (источник должен содержать ровно одно дерево)
+     * @param src Источник символов
+     * @throws Exception Ошибка разбора
+     */
+    protected void fromBracketNotation(BracketNotationSource src) throws Exception {
+        NodeArena target = spareArena;
+        TreeBuilder<T> builder;
+        if (target != null) {
+            target.reset();
+            builder = new TreeBuilder<>(target::allocate);
+        } else {
+            builder = new TreeBuilder<>(this::newNode);
+        }
+        newParser().parse(src, builder);
+        if (target != null) {
+            spareArena = arena;
+            arena = target;
+        }
+        this.root = builder.root;
+    }
+
+    public void fromBracketNotation(String bracketStr) throws Exception {
+        fromBracketNotation(BracketNotationSource.of(bracketStr));
+    }
+
+    /**
+     * Построение дерева с отложенным декодированием значений: при загрузке разбирается
+     * только структура дерева, а для каждого узла запоминается положение значения в строке.
+     * Функция конвертации вызывается при первом обращении к значению узла, результат
+     * запоминается. Строка удерживается в памяти, пока есть недекодированные узлы.
+     * @param bracketStr Строка в скобочной нотации
+     * @throws Exception Ошибка разбора
+     */
+    public void fromBracketNotationLazy(CharSequence bracketStr) throws Exception {
+        ValueDecoder<T> decoder = getValueDecoder();
+        if (decoder == null) {
             throw new Exception("Не определена функция конвертации строки в T");
         }
-        return fromStrFunc.apply(s);
+        lazyDecoder = decoder;
+        BracketNotationParser<SimpleTreeNode> parser = new BracketNotationParser<>(LazyTreeNode::new);
+        TreeBuilder<SimpleTreeNode> builder = new TreeBuilder<>(node -> node);
+        parser.parse(bracketStr, builder);
+        this.root = builder.root;
     }
 
-    private class IndexWrapper {
-        public int index = 0;
+    /**
+     * Минимальный размер (в символах) поддерева, которое имеет смысл разбирать параллельно
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Максимальная вложенность задач при параллельном разборе (ограничивает глубину
+     * стека потока: задача, ожидающая свою подзадачу, может выполнять ее в том же потоке)
+     */
+    private static final int MAX_FORK_DEPTH = 32;
+
+    /**
+     * Параллельный разбор дерева в скобочной нотации (результат совпадает с fromBracketNotation).
+     * Сначала одним проходом находятся пары соответствующих скобок, после чего левое
+     * и правое поддеревья больших узлов строятся независимо в ForkJoinPool.
+     * Если строка содержит ошибку, она разбирается заново последовательно, поэтому
+     * исключение такое же, как у fromBracketNotation.
+     * Функция конвертации значений должна допускать вызов из нескольких потоков.
+     * @param bracketStr Строка в скобочной нотации
+     * @param pool Пул потоков
+     * @param threshold Поддеревья меньше этого размера (в символах) разбираются последовательно
+     * @throws Exception Ошибка разбора
+     */
+    public void fromBracketNotationParallel(String bracketStr, ForkJoinPool pool, int threshold) throws Exception {
+        ParallelParser parser = new ParallelParser(bracketStr, threshold);
+        SimpleTreeNode root = null;
+        if (parser.matchBrackets()) {
+            int start = parser.skipSpaces(0);
+            try {
+                if (parser.skipSpaces(parser.subtreeEnd(start)) == bracketStr.length()) {
+                    root = pool.invoke(parser.new SubtreeTask(start, 0));
+                }
+            } catch (ParseException ex) {
+                root = null;
+            }
+        }
+        if (root == null) {
+            // ошибка разбора: последовательный разбор выбросит то же исключение, что и fromBracketNotation
+            fromBracketNotation(BracketNotationSource.of(bracketStr));
+            return;
+        }
+        this.root = root;
+    }
+
+    public void fromBracketNotationParallel(String bracketStr) throws Exception {
+        fromBracketNotationParallel(bracketStr, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
     }
 
-    private void skipSpaces(String bracketStr, IndexWrapper iw) {
-        while (iw.index < bracketStr.length() && Character.isWhitespace(bracketStr.charAt(iw.index))) {
-            iw.index++;
+    /**
+     * Ошибка разбора внутри задачи ForkJoinPool
+     */
+    private static class ParseException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ParseException(Throwable cause) {
+            super(cause);
         }
     }
 
-    private T readValue(String bracketStr, IndexWrapper iw) throws Exception {
-        // пропускаем возможные пробелы
-        skipSpaces(bracketStr, iw);
-        if (iw.index >= bracketStr.length()) {
-            return null;
+    private class ParallelParser {
+        private final BracketNotationParser<T> parser = newParser();
+        private final String s;
+        private final int threshold;
+        // для каждой '(' - позиция соответствующей ')'
+        private final int[] match;
+
+        ParallelParser(String s, int threshold) {
+            this.s = s;
+            this.threshold = threshold;
+            this.match = new int[s.length()];
         }
-        int from = iw.index;
-        boolean quote = bracketStr.charAt(iw.index) == '"';
-        if (quote) {
-            iw.index++;
+
+        /**
+         * Предварительный проход: поиск пар скобок. Кавычка открывает значение в кавычках
+         * (скобки внутри которого не учитываются) по тем же правилам, что и в BracketNotationParser:
+         * только в начале значения, то есть не внутри значения без кавычек.
+         * @return false, если скобки не сбалансированы
+         */
+        boolean matchBrackets() {
+            int[] stack = new int[16];
+            int top = 0;
+            boolean tokenStart = true;
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c == '"' && tokenStart) {
+                    i = s.indexOf('"', i + 1);
+                    if (i < 0) {
+                        break;
+                    }
+                } else if (c == '(') {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = i;
+                    tokenStart = true;
+                } else if (c == ')') {
+                    if (top == 0) {
+                        return false;
+                    }
+                    match[stack[--top]] = i;
+                    tokenStart = true;
+                } else {
+                    tokenStart = c == ',' || Character.isWhitespace(c);
+                }
+            }
+            return top == 0;
         }
-        while (iw.index < bracketStr.length() && (
-                quote && bracketStr.charAt(iw.index) != '"' ||
-                        !quote && !Character.isWhitespace(bracketStr.charAt(iw.index)) && "(),".indexOf(bracketStr.charAt(iw.index)) < 0
-        )) {
-            iw.index++;
+
+        int skipSpaces(int i) {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * @param start Начало поддерева (значения узла)
+         * @return Позиция сразу за поддеревом
+         */
+        int subtreeEnd(int start) {
+            int i = start;
+            if (i < s.length() && s.charAt(i) == '"') {
+                i = s.indexOf('"', i + 1);
+                i = i < 0 ? s.length() : i + 1;
+            } else {
+                while (i < s.length() && !Character.isWhitespace(s.charAt(i)) && "(),".indexOf(s.charAt(i)) < 0) {
+                    i++;
+                }
+            }
+            i = skipSpaces(i);
+            return i < s.length() && s.charAt(i) == '(' ? match[i] + 1 : i;
+        }
+
+        /**
+         * Разбор поддерева последовательным парсером
+         */
+        SimpleTreeNode parseSequential(int start) throws Exception {
+            TreeBuilder<T> builder = new TreeBuilder<>(SimpleBinaryTree.this::newNode);
+            parser.parseSubtree(new BracketNotationSource.CharSequenceSource(s, start), builder);
+            return builder.root;
         }
-        if (quote && bracketStr.charAt(iw.index) == '"') {
-            iw.index++;
+
+        /**
+         * Построение поддерева. Задача спускается по дереву в цикле, отдельной задачей
+         * отдается только левое поддерево узла, у которого оба поддерева большие
+         * (поэтому глубина стека не зависит от высоты дерева). Поддеревья меньше
+         * threshold и все поддеревья на глубине вложенности MAX_FORK_DEPTH
+         * разбираются последовательным (итеративным) парсером.
+         */
+        class SubtreeTask extends RecursiveTask<SimpleTreeNode> {
+            private static final long serialVersionUID = 1L;
+
+            private final int start;
+            private final int forkDepth;
+
+            SubtreeTask(int start, int forkDepth) {
+                this.start = start;
+                this.forkDepth = forkDepth;
+            }
+
+            @Override
+            protected SimpleTreeNode compute() {
+                SimpleTreeNode root = null;
+                // узел, к которому присоединяется следующий построенный узел, и с какой стороны
+                SimpleTreeNode parent = null;
+                boolean toLeft = false;
+                // отданные левые поддеревья и узлы, к которым они присоединяются
+                ArrayList<SubtreeTask> tasks = new ArrayList<>();
+                ArrayList<SimpleTreeNode> owners = new ArrayList<>();
+                ParseException failure = null;
+                try {
+                    int i = start;
+                    while (i >= 0) {
+                        SimpleTreeNode node;
+                        int left = -1;
+                        int right = -1;
+                        if (forkDepth >= MAX_FORK_DEPTH || subtreeEnd(i) - i < threshold) {
+                            node = parseSequential(i);
+                        } else {
+                            BracketNotationSource src = new BracketNotationSource.CharSequenceSource(s, i);
+                            node = newNode(parser.readValue(src));
+                            if (src.peek() == '(') {
+                                int close = match[(int) src.position()];
+                                int j = skipSpaces((int) src.position() + 1);
+                                // как и в BracketNotationParser: левое поддерево есть, если сразу нет ','
+                                // (в том числе пустое значение перед ')')
+                                if (s.charAt(j) != ',') {
+                                    left = j;
+                                    j = skipSpaces(subtreeEnd(j));
+                                }
+                                if (j < close && s.charAt(j) == ',') {
+                                    j = skipSpaces(j + 1);
+                                }
+                                if (j < close) {
+                                    right = j;
+                                    j = skipSpaces(subtreeEnd(j));
+                                }
+                                if (j != close) {
+                                    throw new ParseException(null);
+                                }
+                            }
+                        }
+                        if (parent == null) {
+                            root = node;
+                        } else if (toLeft) {
+                            parent.left = node;
+                        } else {
+                            parent.right = node;
+                        }
+                        parent = node;
+                        i = -1;
+                        if (left >= 0 && right >= 0) {
+                            // маленькое поддерево разбирается сразу, по большому спуск продолжается
+                            if (subtreeEnd(left) - left < threshold) {
+                                node.left = parseSequential(left);
+                                left = -1;
+                            } else if (subtreeEnd(right) - right < threshold) {
+                                node.right = parseSequential(right);
+                                right = -1;
+                            } else {
+                                SubtreeTask task = new SubtreeTask(left, forkDepth + 1);
+                                task.fork();
+                                tasks.add(task);
+                                owners.add(node);
+                                left = -1;
+                            }
+                        }
+                        if (left >= 0) {
+                            i = left;
+                            toLeft = true;
+                        } else if (right >= 0) {
+                            i = right;
+                            toLeft = false;
+                        }
+                    }
+                } catch (ParseException ex) {
+                    failure = ex;
+                } catch (Exception ex) {
+                    failure = new ParseException(ex);
+                }
+                // отданные задачи дожидаются и при ошибке, чтобы после выхода никто не продолжал разбор;
+                // в обратном порядке, чтобы еще не взятая другим потоком задача снималась с вершины очереди
+                for (int k = tasks.size() - 1; k >= 0; k--) {
+                    try {
+                        owners.get(k).left = tasks.get(k).join();
+                    } catch (ParseException ex) {
+                        failure = failure == null ? ex : failure;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return root;
+            }
         }
-        String valueStr = bracketStr.substring(from, iw.index);
-        T value = fromStr(valueStr);
-        skipSpaces(bracketStr, iw);
-        return value;
     }
 
-    private SimpleTreeNode fromBracketStr(String bracketStr, IndexWrapper iw) throws Exception {
-        T parentValue = readValue(bracketStr, iw);
-        SimpleTreeNode parentNode = new SimpleTreeNode(parentValue);
-        if (bracketStr.charAt(iw.index) == '(') {
-            iw.index++;
-            skipSpaces(bracketStr, iw);
-            if (bracketStr.charAt(iw.index) != ',') {
-                SimpleTreeNode leftNode = fromBracketStr(bracketStr, iw);
-                parentNode.left = leftNode;
-                skipSpaces(bracketStr, iw);
+    /**
+     * Построение дерева по скобочной нотации, читаемой из Reader'а.
+     * Текст целиком в памяти не хранится - разбор идет из буфера ограниченного размера,
+     * позиции в сообщениях об ошибках - смещения в символах от начала потока.
+     * @param reader Reader (не закрывается)
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(Reader reader) throws Exception {
+        fromBracketNotation(BracketNotationSource.of(reader));
+    }
+
+    /**
+     * Построение дерева по скобочной нотации, читаемой из потока байт в кодировке charset
+     * @param in Поток (не закрывается)
+     * @param charset Кодировка
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(InputStream in, Charset charset) throws Exception {
+        fromBracketNotation(new InputStreamReader(in, charset));
+    }
+
+    /**
+     * Построение дерева по скобочной нотации, читаемой из потока байт в кодировке UTF-8
+     * @param in Поток (не закрывается)
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(InputStream in) throws Exception {
+        fromBracketNotation(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Построение дерева по скобочной нотации из файла (в кодировке UTF-8)
+     * @param path Путь к файлу
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromBracketNotation(Path path) throws Exception {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            fromBracketNotation(reader);
+        }
+    }
+
+    /**
+     * Построение дерева по скобочной нотации из файла, отображенного в память.
+     * Самый дешевый способ загрузки больших файлов: байты разбираются напрямую,
+     * без декодирования всего файла в символы (файл должен быть в ASCII или UTF-8).
+     * @param path Путь к файлу
+     * @throws Exception Ошибка чтения или разбора
+     */
+    public void fromMappedFile(Path path) throws Exception {
+        try (BracketNotationSource src = BracketNotationSource.ofMappedFile(path)) {
+            fromBracketNotation(src);
+        }
+    }
+
+    /**
+     * Посетитель для обходов Морриса: после первого исключения посетителя обход
+     * продолжается без вызовов посетителя (чтобы убрать все временные ссылки),
+     * а исключение выбрасывается в конце
+     */
+    private static class MorrisVisitor<T> {
+        private final Visitor<T> visitor;
+        private RuntimeException exception = null;
+        private Error error = null;
+
+        MorrisVisitor(Visitor<T> visitor) {
+            this.visitor = visitor;
+        }
+
+        void visit(T value, int level) {
+            if (exception != null || error != null) {
+                return;
+            }
+            try {
+                visitor.visit(value, level);
+            } catch (RuntimeException ex) {
+                exception = ex;
+            } catch (Error ex) {
+                error = ex;
+            }
+        }
+
+        void rethrow() {
+            if (exception != null) {
+                throw exception;
+            }
+            if (error != null) {
+                throw error;
             }
-            if (bracketStr.charAt(iw.index) == ',') {
-                iw.index++;
-                skipSpaces(bracketStr, iw);
+        }
+    }
+
+    /**
+     * Симметричный обход методом Морриса: O(1) дополнительной памяти, без стека.
+     * На время обхода пустые правые ссылки узлов временно указывают на их преемников,
+     * поэтому дерево нельзя читать из других потоков, пока идет обход. По окончании
+     * обхода (в том числе если посетитель выбросил исключение) дерево восстанавливается.
+     * @param visitor Посетитель
+     */
+    public void inOrderVisitMorris(Visitor<T> visitor) {
+        morrisVisit(visitor, false);
+    }
+
+    /**
+     * Прямой обход методом Морриса (см. inOrderVisitMorris)
+     * @param visitor Посетитель
+     */
+    public void preOrderVisitMorris(Visitor<T> visitor) {
+        morrisVisit(visitor, true);
+    }
+
+    private void morrisVisit(Visitor<T> visitor, boolean preOrder) {
+        MorrisVisitor<T> v = new MorrisVisitor<>(visitor);
+        SimpleTreeNode cur = root;
+        // уровень cur; после перехода по временной ссылке он завышен и исправляется ниже
+        int level = 0;
+        while (cur != null) {
+            if (cur.left == null) {
+                v.visit(cur.getValue(), level);
+                cur = cur.right;
+                level++;
+                continue;
             }
-            if (bracketStr.charAt(iw.index) != ')') {
-                SimpleTreeNode rightNode = fromBracketStr(bracketStr, iw);
-                parentNode.right = rightNode;
-                skipSpaces(bracketStr, iw);
+            // предшественник cur - самый правый узел левого поддерева (на k шагов ниже cur.left)
+            SimpleTreeNode pred = cur.left;
+            int k = 0;
+            while (pred.right != null && pred.right != cur) {
+                pred = pred.right;
+                k++;
             }
-            if (bracketStr.charAt(iw.index) != ')') {
-                throw new Exception(String.format("Ожидалось ')' [%d]", iw.index));
+            if (pred.right == null) {
+                if (preOrder) {
+                    v.visit(cur.getValue(), level);
+                }
+                pred.right = cur;
+                cur = cur.left;
+                level++;
+            } else {
+                // возврат по временной ссылке: левое поддерево пройдено
+                pred.right = null;
+                level -= 2 + k;
+                if (!preOrder) {
+                    v.visit(cur.getValue(), level);
+                }
+                cur = cur.right;
+                level++;
             }
-            iw.index++;
         }
+        v.rethrow();
+    }
 
-        return parentNode;
+    /**
+     * Обратный обход методом Морриса (см. inOrderVisitMorris). Правые цепочки узлов
+     * временно разворачиваются, чтобы выдать их снизу вверх без дополнительной памяти.
+     * @param visitor Посетитель
+     */
+    public void postOrderVisitMorris(Visitor<T> visitor) {
+        MorrisVisitor<T> v = new MorrisVisitor<>(visitor);
+        SimpleTreeNode dummy = new SimpleTreeNode(null, root, null);
+        SimpleTreeNode cur = dummy;
+        int level = -1;
+        while (cur != null) {
+            if (cur.left == null) {
+                cur = cur.right;
+                level++;
+                continue;
+            }
+            SimpleTreeNode pred = cur.left;
+            int k = 0;
+            while (pred.right != null && pred.right != cur) {
+                pred = pred.right;
+                k++;
+            }
+            if (pred.right == null) {
+                pred.right = cur;
+                cur = cur.left;
+                level++;
+            } else {
+                pred.right = null;
+                level -= 2 + k;
+                // цепочка cur.left ... pred выдается в обратном порядке
+                reverseRightChain(cur.left);
+                int l = level + 1 + k;
+                for (SimpleTreeNode node = pred; node != null; node = node.right) {
+                    v.visit(node.getValue(), l--);
+                }
+                reverseRightChain(pred);
+                cur = cur.right;
+                level++;
+            }
+        }
+        v.rethrow();
     }
 
-    public void fromBracketNotation(String bracketStr) throws Exception {
-        IndexWrapper iw = new IndexWrapper();
-        SimpleTreeNode root = fromBracketStr(bracketStr, iw);
-        if (iw.index < bracketStr.length()) {
-            throw new Exception(String.format("Ожидался конец строки [%d]", iw.index));
+    /**
+     * Разворот цепочки узлов, связанных правыми ссылками (последний узел цепочки - с right == null)
+     */
+    private void reverseRightChain(SimpleTreeNode from) {
+        SimpleTreeNode prev = null;
+        while (from != null) {
+            SimpleTreeNode next = from.right;
+            from.right = prev;
+            prev = from;
+            from = next;
         }
-        this.root = root;
     }
 
     /**
@@ -173,11 +846,11 @@ public class SimpleBinaryTree<T> implements SimpleBinaryTreeInterface<T> { //б
         if (node.left == null && node.right == null) {
             return;
         } else if (node.left == null){
-            node.setValue(node.right.value);
+            node.setValue(node.right.getValue());
             node.setLeft(node.right.left);
             node.setRight(node.right.right);
         } else if (node.right == null){
-            node.setValue(node.left.value);
+            node.setValue(node.left.getValue());
             node.setRight(node.left.right);
             node.setLeft(node.left.left);
         }
@@ -1,13 +1,28 @@
 package com.company;
 
 import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
 
+    /**
+     * Порядок обхода
+     */
+    enum Order {
+        PRE_ORDER,   // прямой (NLR)
+        IN_ORDER,    // симметричный (LNR)
+        POST_ORDER,  // обратный (LRN)
+        BY_LEVEL     // по уровням (в ширину)
+    }
+
     @FunctionalInterface
     interface Visitor<T> {
         void visit(T value, int level);
@@ -18,6 +33,36 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         void visit(TreeNode<T> node, int level);
     }
 
+    /**
+     * Посетитель для деревьев целых чисел (значение передается без упаковки)
+     */
+    @FunctionalInterface
+    interface IntVisitor {
+        void visit(int value, int level);
+    }
+
+    /**
+     * Что делать после посещения узла
+     */
+    enum VisitResult {
+        CONTINUE,      // продолжить обход
+        SKIP_SUBTREE,  // не обходить еще не пройденную часть поддерева узла
+        STOP           // закончить обход
+    }
+
+    /**
+     * Посетитель, управляющий обходом (null в качестве результата равносилен CONTINUE)
+     */
+    @FunctionalInterface
+    interface ControlVisitor<T> {
+        VisitResult visit(T value, int level);
+    }
+
+    @FunctionalInterface
+    interface ControlNodeVisitor<T> {
+        VisitResult visit(TreeNode<T> node, int level);
+    }
+
     interface TreeNode<T> extends Iterable<T> {
 
         T getValue();                      //значение узла
@@ -39,40 +84,17 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
          * @param visitor
          */
         default void preOrderNodeVisitor(NodeVisitor<T> visitor) {
-            // данный класс нужен только для того, чтобы "спрятать" его метод (c 3-мя параметрами)
-            class Inner {
-                void preOrderVisit(TreeNode<T> node, NodeVisitor<T> visitor, int level) {
-                    if (node == null) {
-                        return;
-                    }
-                    visitor.visit(node, level);
-                    preOrderVisit(node.getLeft(), visitor, level + 1);
-                    preOrderVisit(node.getRight(), visitor, level + 1);
-                }
-            }
-            // класс приходится создавать, т.к. статические методы в таких класс не поддерживаются
-            new Inner().preOrderVisit(this, visitor, 0);
+            // итеративно (глубина дерева не ограничена размером стека потока)
+            TreeWalks.preOrderNodes(this, visitor);
         }
 
         /**
-         * Рекурсивынй обход поддерева с вершиной в данном узле
+         * Итеративный обход поддерева с вершиной в данном узле
          * в прямом порядке.
          * @param visitor Посетитель
          */
         default void preOrderVisit(Visitor<T> visitor) {
-            // данный класс нужен только для того, чтобы "спрятать" его метод (c 3-мя параметрами)
-            class Inner {
-                void preOrderVisit(TreeNode<T> node, Visitor<T> visitor, int level) {
-                    if (node == null) {
-                        return;
-                    }
-                    visitor.visit(node.getValue(), level);
-                    preOrderVisit(node.getLeft(), visitor, level + 1);
-                    preOrderVisit(node.getRight(), visitor, level + 1);
-                }
-            }
-            // класс приходится создавать, т.к. статические методы в таких класс не поддерживаются
-            new Inner().preOrderVisit(this, visitor, 0);
+            TreeWalks.preOrder(this, visitor);
         }
 
         /**
@@ -81,50 +103,15 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
          * @return Итератор
          */
         default Iterable<T> preOrderValues() {
-            return () -> {
-                Stack<TreeNode<T>> stack = new Stack<>();
-                stack.push(this);
-
-                return new Iterator<T>() {
-                    @Override
-                    public boolean hasNext() {
-                        return stack.size() > 0;
-                    }
-
-                    @Override
-                    public T next() {
-                        TreeNode<T> node = stack.pop();
-                        if (node.getRight() != null) {
-                            stack.push(node.getRight());
-                        }
-                        if (node.getLeft() != null) {
-                            stack.push(node.getLeft());
-                        }
-                        return node.getValue();
-                    }
-
-                };
-            };
+            return () -> new TraversalCursor<>(this, Order.PRE_ORDER).iterator();
         }
 
         /**
-         * Рекурсивный обход поддерева в симметричном порядке.
+         * Итеративный обход поддерева в симметричном порядке.
          * @param visitor Посетитель
          */
         default void inOrderVisit(Visitor<T> visitor) {
-            // данный класс нужен только для того, чтобы "спрятать" его метод (c 3-мя параметрами)
-            class Inner {
-                void inOrderVisit(TreeNode<T> node, Visitor<T> visitor, int level) {
-                    if (node == null) {
-                        return;
-                    }
-                    inOrderVisit(node.getLeft(), visitor, level + 1);
-                    visitor.visit(node.getValue(), level);
-                    inOrderVisit(node.getRight(), visitor, level + 1);
-                }
-            }
-            // класс приходится создавать, т.к. статические методы в таких класс не поддерживаются
-            new Inner().inOrderVisit(this, visitor, 0);
+            TreeWalks.inOrder(this, visitor);
         }
 
         /**
@@ -132,93 +119,21 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
          * @return Итератор
          */
         default Iterable<T> inOrderValues() {
-            return () -> {
-                Stack<TreeNode<T>> stack = new Stack<>();
-                TreeNode<T> node = this;
-                while (node != null) {
-                    stack.push(node);
-                    node = node.getLeft();
-                }
-
-                return new Iterator<T>() {
-                    @Override
-                    public boolean hasNext() {
-                        return !stack.isEmpty();
-                    }
-
-                    @Override
-                    public T next() {
-                        TreeNode<T> node = stack.pop();
-                        T result = node.getValue();
-                        if (node.getRight() != null) {
-                            node = node.getRight();
-                            while (node != null) {
-                                stack.push(node);
-                                node = node.getLeft();
-                            }
-                        }
-                        return result;
-                    }
-                };
-            };
+            return () -> new TraversalCursor<>(this, Order.IN_ORDER).iterator();
         }
 
         /**
          * Обход поддерева с вершиной в данном узле
-         * "посетителем" в обратном порядке рекурсивная реализация.
+         * "посетителем" в обратном порядке, итеративная реализация.
          *
          * @param visitor Посетитель
          */
         default void postOrderVisit(Visitor<T> visitor) {
-            // данный класс нужен только для того, чтобы "спрятать" его метод (c 3-мя параметрами)
-            class Inner {
-                void postOrderVisit(TreeNode<T> node, Visitor<T> visitor, int level) {
-                    if (node == null) {
-                        return;
-                    }
-                    postOrderVisit(node.getLeft(), visitor, level + 1);
-                    postOrderVisit(node.getRight(), visitor, level + 1);
-                    visitor.visit(node.getValue(), level);
-                }
-            }
-            // класс приходится создавать, т.к. статические методы в таких класс не поддерживаются
-            new Inner().postOrderVisit(this, visitor, 0);
+            TreeWalks.postOrder(this, visitor);
         }
 
         default Iterable<T> postOrderValues() {
-            return () -> {
-                // Реализация TreeNode<T>, где left = right = null
-                TreeNode<T> emptyNode = () -> null;
-
-                Stack<TreeNode<T>> stack = new Stack<>();
-                Stack<T> valuesStack = new Stack<>();
-                stack.push(this);
-
-                return new Iterator<T>() {
-                    @Override
-                    public boolean hasNext() {
-                        return stack.size() > 0;
-                    }
-
-                    @Override
-                    public T next() {
-                        for (TreeNode<T> node = stack.pop(); node != emptyNode; node = stack.pop()) {
-                            if (node.getRight() == null && node.getLeft() == null) {
-                                return node.getValue();
-                            }
-                            valuesStack.push(node.getValue());
-                            stack.push(emptyNode);
-                            if (node.getRight() != null) {
-                                stack.push(node.getRight());
-                            }
-                            if (node.getLeft() != null) {
-                                stack.push(node.getLeft());
-                            }
-                        }
-                        return valuesStack.pop();
-                    }
-                };
-            };
+            return () -> new TraversalCursor<>(this, Order.POST_ORDER).iterator();
         }
 
         /**
@@ -227,28 +142,17 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
          * @param visitor Посетитель
          */
         default void byLevelVisit(Visitor<T> visitor) {
-            class QueueItem {
-                public SimpleBinaryTreeInterface.TreeNode<T> node;
-                public int level;
-
-                public QueueItem(SimpleBinaryTreeInterface.TreeNode<T> node, int level) {
-                    this.node = node;
-                    this.level = level;
-                }
-            }
+            new LevelTraversal<T>().visit(this, visitor);
+        }
 
-            Queue<QueueItem> queue = new LinkedList<>();
-            queue.add(new QueueItem(this, 0));
-            while (!queue.isEmpty()) {
-                QueueItem item = queue.poll();
-                if (item.node.getLeft() != null) {
-                    queue.add(new QueueItem(item.node.getLeft(), item.level + 1));
-                }
-                if (item.node.getRight() != null) {
-                    queue.add(new QueueItem(item.node.getRight(), item.level + 1));
-                }
-                visitor.visit(item.node.getValue(), item.level);
-            }
+        /**
+         * Обход поддерева с вершиной в данном узле по уровням: посетитель вызывается
+         * один раз для каждого уровня и получает все узлы уровня слева направо
+         *
+         * @param visitor Посетитель уровней
+         */
+        default void byLevelBatchVisit(LevelTraversal.LevelVisitor<T> visitor) {
+            new LevelTraversal<T>().visitLevels(this, visitor);
         }
 
         /**
@@ -258,43 +162,7 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
          * @return Итератор
          */
         default Iterable<T> byLevelValues() {
-            return () -> {
-                class QueueItem {
-                    public SimpleBinaryTreeInterface.TreeNode<T> node;
-                    public int level;
-
-                    public QueueItem(SimpleBinaryTreeInterface.TreeNode<T> node, int level) {
-                        this.node = node;
-                        this.level = level;
-                    }
-                }
-
-                Queue<QueueItem> queue = new LinkedList<>();
-                queue.add(new QueueItem(this, 0));
-
-                return new Iterator<T>() {
-                    @Override
-                    public boolean hasNext() {
-                        return queue.size() > 0;
-                    }
-
-                    @Override
-                    public T next() {
-                        QueueItem item = queue.poll();
-                        if (item == null) {
-                            // такого быть не должно, но на вский случай
-                            return null;
-                        }
-                        if (item.node.getLeft() != null) {
-                            queue.add(new QueueItem(item.node.getLeft(), item.level + 1));
-                        }
-                        if (item.node.getRight() != null) {
-                            queue.add(new QueueItem(item.node.getRight(), item.level + 1));
-                        }
-                        return item.node.getValue();
-                    }
-                };
-            };
+            return () -> new TraversalCursor<>(this, Order.BY_LEVEL).iterator();
         }
 
         /**
@@ -309,6 +177,13 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
 
     }
 
+    /**
+     * Узел, знающий количество узлов в своем поддереве (позволяет точно делить обход на части)
+     */
+    interface SizedTreeNode<T> extends TreeNode<T> {
+        long getSubtreeSize();
+    }
+
     /**
      * @return Корень (вершина) дерева
      */
@@ -322,7 +197,7 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
     }
 
     /**
-     * Обход дерева "посетителем" в прямом/NLR порядке - рекурсивная реализпция
+     * Обход дерева "посетителем" в прямом/NLR порядке - итеративная реализация
      *
      * @param visitor Посетитель
      */
@@ -347,9 +222,20 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         return root.preOrderValues();
     }
 
+    /**
+     * Параллельный прямой обход в общем пуле потоков (порядок вызовов посетителя
+     * между разными поддеревьями не определен)
+     *
+     * @param visitor Потокобезопасный посетитель
+     */
+    default void preOrderVisitParallel(Visitor<T> visitor) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ParallelTreeVisits.preOrderVisit(getRoot(), visitor, pool, ParallelTreeVisits.defaultForkDepth(pool));
+    }
+
     /**
      * Обход дерева "посетителем" в симметричном/поперечном/центрированном/LNR
-     * порядке - рекурсивная реализпция
+     * порядке - итеративная реализация
      *
      * @param visitor Посетитель
      */
@@ -376,8 +262,8 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
     }
 
     /**
-     * Обход дерева "посетителем" в обратном/LRN порядке - рекурсивная
-     * реализпция
+     * Обход дерева "посетителем" в обратном/LRN порядке - итеративная
+     * реализация
      *
      * @param visitor Посетитель
      */
@@ -388,6 +274,28 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         }
     }
 
+    /**
+     * Параллельный обратный обход в общем пуле потоков (узел посещается после обоих своих поддеревьев)
+     *
+     * @param visitor Потокобезопасный посетитель
+     */
+    default void postOrderVisitParallel(Visitor<T> visitor) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ParallelTreeVisits.postOrderVisit(getRoot(), visitor, pool, ParallelTreeVisits.defaultForkDepth(pool));
+    }
+
+    /**
+     * Параллельная свертка дерева снизу вверх в общем пуле потоков
+     *
+     * @param combiner Сборка результата узла из результатов поддеревьев
+     * @param empty Результат для пустого поддерева
+     * @return Результат для всего дерева
+     */
+    default <R> R postOrderReduce(ParallelTreeVisits.Combiner<T, R> combiner, R empty) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return ParallelTreeVisits.postOrderReduce(getRoot(), combiner, empty, pool, ParallelTreeVisits.defaultForkDepth(pool));
+    }
+
     /**
      * Обход дерева в виде итератора в обратном/LRN порядке (предполагается, что
      * в процессе обхода дерево не меняется)
@@ -414,6 +322,29 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         }
     }
 
+    /**
+     * Параллельный обход дерева по уровням (для очень широких деревьев) в общем пуле потоков
+     *
+     * @param visitor Посетитель (при ordered == false должен быть потокобезопасным)
+     * @param ordered Вызывать ли посетителя слева направо в пределах уровня
+     */
+    default void byLevelVisitParallel(Visitor<T> visitor, boolean ordered) {
+        new LevelTraversal<T>().visitParallel(getRoot(), visitor, ordered);
+    }
+
+    /**
+     * Обход дерева по уровням с посетителем, получающим уровень целиком
+     * (например, для подсчета ширины уровней или раскладки строк при отрисовке)
+     *
+     * @param visitor Посетитель уровней
+     */
+    default void byLevelBatchVisit(LevelTraversal.LevelVisitor<T> visitor) {
+        TreeNode<T> root = getRoot();
+        if (root != null) {
+            root.byLevelBatchVisit(visitor);
+        }
+    }
+
     /**
      * Обход дерева в виде итератора по уровням (предполагается, что в процессе
      * обхода дерево не меняется)
@@ -428,6 +359,17 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         return root.byLevelValues();
     }
 
+    /**
+     * Курсор для обхода дерева в заданном порядке. Курсор можно переиспользовать
+     * для следующих обходов (в т.ч. других деревьев) через reset().
+     *
+     * @param order Порядок обхода
+     * @return Курсор, установленный перед первым узлом
+     */
+    default TraversalCursor<T> cursor(Order order) {
+        return new TraversalCursor<>(getRoot(), order);
+    }
+
     /**
      * Реализация Iterable&lt;T&gt;
      *
@@ -438,6 +380,140 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
         return inOrderValues().iterator();
     }
 
+    /**
+     * Обход с управлением со стороны посетителя. SKIP_SUBTREE при прямом обходе и обходе
+     * по уровням пропускает потомков узла, при симметричном - правое поддерево узла
+     * (левое уже пройдено), при обратном ничего не пропускает (поддерево уже пройдено).
+     * STOP сразу заканчивает обход в любом порядке.
+     *
+     * @param order Порядок обхода
+     * @param visitor Посетитель
+     * @return false - если обход остановлен посетителем
+     */
+    default boolean controlledNodeVisit(Order order, ControlNodeVisitor<T> visitor) {
+        TraversalCursor<T> cursor = cursor(order);
+        while (cursor.next()) {
+            VisitResult result = visitor.visit(cursor.node(), cursor.level());
+            if (result == VisitResult.STOP) {
+                return false;
+            }
+            if (result == VisitResult.SKIP_SUBTREE) {
+                cursor.skipSubtree();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Обход значений с управлением со стороны посетителя (см. controlledNodeVisit)
+     *
+     * @param order Порядок обхода
+     * @param visitor Посетитель
+     * @return false - если обход остановлен посетителем
+     */
+    default boolean controlledVisit(Order order, ControlVisitor<T> visitor) {
+        return controlledNodeVisit(order, (node, level) -> visitor.visit(node.getValue(), level));
+    }
+
+    /**
+     * Поиск первого в заданном порядке узла, значение которого удовлетворяет условию
+     * (обход останавливается на найденном узле)
+     *
+     * @param order Порядок обхода
+     * @param predicate Условие
+     * @return Узел или null, если такого нет
+     */
+    default TreeNode<T> findFirst(Order order, Predicate<? super T> predicate) {
+        @SuppressWarnings("unchecked")
+        TreeNode<T>[] found = (TreeNode<T>[]) new TreeNode<?>[1];
+        controlledNodeVisit(order, (node, level) -> {
+            if (predicate.test(node.getValue())) {
+                found[0] = node;
+                return VisitResult.STOP;
+            }
+            return VisitResult.CONTINUE;
+        });
+        return found[0];
+    }
+
+    /**
+     * @param predicate Условие
+     * @return Есть ли в дереве значение, удовлетворяющее условию (обход останавливается на первом таком)
+     */
+    default boolean anyMatch(Predicate<? super T> predicate) {
+        return !controlledVisit(Order.PRE_ORDER, (value, level) -> predicate.test(value) ? VisitResult.STOP : VisitResult.CONTINUE);
+    }
+
+    /**
+     * Обход только узлов с уровнем не больше maxLevel (более глубокие узлы
+     * не посещаются и не просматриваются)
+     *
+     * @param order Порядок обхода
+     * @param maxLevel Максимальный уровень (у корня - 0)
+     * @param visitor Посетитель
+     */
+    default void visitToDepth(Order order, int maxLevel, Visitor<T> visitor) {
+        TraversalCursor<T> cursor = new TraversalCursor<T>(null, order).setMaxLevel(maxLevel).reset(getRoot());
+        while (cursor.next()) {
+            visitor.visit(cursor.value(), cursor.level());
+        }
+    }
+
+    /**
+     * Spliterator, делящийся по поддеревьям (для обхода по уровням - делящийся порциями)
+     *
+     * @param order Порядок обхода
+     * @return Spliterator
+     */
+    default Spliterator<T> spliterator(Order order) {
+        return TreeSpliterator.of(getRoot(), order);
+    }
+
+    @Override
+    default Spliterator<T> spliterator() {
+        return spliterator(Order.IN_ORDER);
+    }
+
+    /**
+     * @param order Порядок обхода
+     * @return Последовательный поток значений дерева в заданном порядке
+     */
+    default Stream<T> stream(Order order) {
+        return StreamSupport.stream(spliterator(order), false);
+    }
+
+    /**
+     * @param order Порядок обхода
+     * @return Параллельный поток значений дерева (порядок обхода сохраняется для упорядоченных операций)
+     */
+    default Stream<T> parallelStream(Order order) {
+        return StreamSupport.stream(spliterator(order), true);
+    }
+
+
+    /**
+     * Запись дерева в скобочной нотации (итеративно, порциями фиксированного размера)
+     *
+     * @param out Куда писать (Writer, StringBuilder и т.п.)
+     * @throws IOException Ошибка записи
+     */
+    default void writeBracketNotation(Appendable out) throws IOException {
+        BracketNotationWriter writer = new BracketNotationWriter(out);
+        writer.write(getRoot());
+        writer.flush();
+    }
+
+    /**
+     * Запись дерева в скобочной нотации в канал (в кодировке UTF-8)
+     *
+     * @param channel Канал
+     * @throws IOException Ошибка записи
+     */
+    default void writeBracketNotation(WritableByteChannel channel) throws IOException {
+        BracketNotationWriter writer = new BracketNotationWriter(channel);
+        writer.write(getRoot());
+        writer.flush();
+    }
 
     /**
      * Представление дерева в виде строки в скобочной нотации
@@ -445,28 +521,13 @@ public interface SimpleBinaryTreeInterface<T> extends Iterable<T> {
      * @return дерево в виде строки
      */
     default String toBracketStr() {
-        // данный класс нужен только для того, чтобы "спрятать" его метод (c 2-мя параметрами)
-        class Inner {
-            void printTo(TreeNode<T> node, StringBuilder sb) {
-                if (node == null) {
-                    return;
-                }
-                sb.append(node.getValue());
-                if (node.getLeft() != null || node.getRight() != null) {
-                    sb.append(" (");
-                    printTo(node.getLeft(), sb);
-                    if (node.getRight() != null) {
-                        sb.append(", ");
-                        printTo(node.getRight(), sb);
-                    }
-                    sb.append(")");
-                }
-            }
-        }
         StringBuilder sb = new StringBuilder();
-        // класс приходится создавать, т.к. статические методы в таких класс не поддерживаются
-        new Inner().printTo(getRoot(), sb);
-
+        try {
+            writeBracketNotation(sb);
+        } catch (IOException e) {
+            // StringBuilder исключений не бросает
+            throw new UncheckedIOException(e);
+        }
         return sb.toString();
     }
 }
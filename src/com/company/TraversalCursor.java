@@ -0,0 +1,138 @@
+package com.company;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Курсор обхода дерева в одном из четырех порядков. В отличие от итераторов
+ * на java.util.Stack, курсор использует собственные несинхронизированные массивы,
+ * которые сохраняются между вызовами reset(), поэтому после "разогрева"
+ * шаг обхода ничего не создает. Кроме значения курсор сообщает уровень узла.
+ * Потомки текущего узла добавляются в стек (очередь) только при следующем шаге.
+ * Предполагается, что в процессе обхода дерево не меняется.
+ *
+ * <pre>
+ * TraversalCursor&lt;Integer&gt; c = tree.cursor(Order.IN_ORDER);
+ * while (c.next()) {
+ *     ... c.value(), c.level() ...
+ * }
+ * c.reset(otherTree.getRoot());
+ * </pre>
+ *
+ * @param <T> Тип значений в узлах
+ */
+public final class TraversalCursor<T> extends AbstractTraversalCursor {
+
+    // стек (для BY_LEVEL - кольцевая очередь) узлов; уровни хранит AbstractTraversalCursor
+    private SimpleBinaryTreeInterface.TreeNode<T>[] nodes = newNodeArray(16);
+    private SimpleBinaryTreeInterface.TreeNode<T> root = null;
+    private SimpleBinaryTreeInterface.TreeNode<T> current = null;
+
+    public TraversalCursor(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Order order) {
+        reset(root, order);
+    }
+
+    /**
+     * Начало нового обхода (массивы курсора переиспользуются)
+     * @param root Корень обходимого (под)дерева, null - пустое дерево
+     * @param order Порядок обхода
+     * @return Этот курсор
+     */
+    public TraversalCursor<T> reset(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Order order) {
+        this.root = root;
+        start(order);
+        this.root = null;
+        return this;
+    }
+
+    /**
+     * Начало нового обхода в том же порядке
+     * @param root Корень обходимого (под)дерева
+     * @return Этот курсор
+     */
+    public TraversalCursor<T> reset(SimpleBinaryTreeInterface.TreeNode<T> root) {
+        return reset(root, getOrder());
+    }
+
+    @Override
+    public TraversalCursor<T> setMaxLevel(int maxLevel) {
+        super.setMaxLevel(maxLevel);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> SimpleBinaryTreeInterface.TreeNode<T>[] newNodeArray(int capacity) {
+        return (SimpleBinaryTreeInterface.TreeNode<T>[]) new SimpleBinaryTreeInterface.TreeNode<?>[capacity];
+    }
+
+    @Override
+    boolean storeRoot(int slot) {
+        nodes[slot] = root;
+        return root != null;
+    }
+
+    @Override
+    boolean storeChild(int slot, int parentSlot, boolean left) {
+        SimpleBinaryTreeInterface.TreeNode<T> parent = parentSlot == CURRENT ? current : nodes[parentSlot];
+        nodes[slot] = left ? parent.getLeft() : parent.getRight();
+        return nodes[slot] != null;
+    }
+
+    @Override
+    void takeCurrent(int slot) {
+        current = nodes[slot];
+        nodes[slot] = null;
+    }
+
+    @Override
+    void clearCurrent() {
+        current = null;
+    }
+
+    @Override
+    void releaseSlot(int slot) {
+        nodes[slot] = null;
+    }
+
+    @Override
+    void resizeSlots(int capacity, int head) {
+        // кольцевая очередь разворачивается в начало нового массива
+        SimpleBinaryTreeInterface.TreeNode<T>[] newNodes = newNodeArray(capacity);
+        int tail = nodes.length - head;
+        System.arraycopy(nodes, head, newNodes, 0, tail);
+        System.arraycopy(nodes, 0, newNodes, tail, head);
+        nodes = newNodes;
+    }
+
+    /**
+     * @return Текущий узел (null - если обход не начат или закончен)
+     */
+    public SimpleBinaryTreeInterface.TreeNode<T> node() {
+        return current;
+    }
+
+    /**
+     * @return Значение текущего узла
+     */
+    public T value() {
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+        return current.getValue();
+    }
+
+    /**
+     * Итератор значений поверх этого курсора (курсор продвигается итератором)
+     * @return Итератор
+     */
+    public Iterator<T> iterator() {
+        class Values extends CursorIterator implements Iterator<T> {
+            @Override
+            public T next() {
+                advance();
+                return current.getValue();
+            }
+        }
+        return new Values();
+    }
+}
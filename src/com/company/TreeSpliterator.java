@@ -0,0 +1,168 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator для обхода дерева в прямом, симметричном или обратном порядке,
+ * который делится по поддеревьям. Оставшаяся часть обхода хранится как стек
+ * элементов двух видов: отдельный узел (выдается только его значение) и поддерево
+ * целиком (при обходе раскрывается в узел и два поддерева в нужном порядке).
+ * При делении новой части отдается начало стека (элементы, идущие в обходе раньше),
+ * поэтому порядок обхода сохраняется (ORDERED). Если узлы знают размер своего
+ * поддерева (SizedTreeNode), размер известен точно (SIZED, SUBSIZED).
+ * Значения могут быть null, поэтому NONNULL не сообщается.
+ *
+ * @param <T> Тип значений в узлах
+ */
+public class TreeSpliterator<T> implements Spliterator<T> {
+
+    private final SimpleBinaryTreeInterface.Order order;
+    private final boolean sized;
+    // стек элементов: вершина (top - 1) - следующий по порядку обхода
+    private SimpleBinaryTreeInterface.TreeNode<T>[] nodes;
+    // true - отдельный узел, false - поддерево целиком
+    private boolean[] single;
+    private int top = 0;
+    // точный размер (sized) или оценка (сначала Long.MAX_VALUE)
+    private long size;
+
+    @SuppressWarnings("unchecked")
+    private TreeSpliterator(SimpleBinaryTreeInterface.Order order, boolean sized, int capacity) {
+        this.order = order;
+        this.sized = sized;
+        this.nodes = (SimpleBinaryTreeInterface.TreeNode<T>[]) new SimpleBinaryTreeInterface.TreeNode<?>[Math.max(capacity, 8)];
+        this.single = new boolean[nodes.length];
+    }
+
+    /**
+     * @param root Корень (под)дерева (null - пустое дерево)
+     * @param order Порядок обхода
+     * @return Spliterator (для обхода по уровням - без деления по поддеревьям)
+     */
+    public static <T> Spliterator<T> of(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Order order) {
+        if (order == SimpleBinaryTreeInterface.Order.BY_LEVEL) {
+            // порядок по уровням не разбивается на независимые поддеревья
+            if (root == null) {
+                return Spliterators.emptySpliterator();
+            }
+            return Spliterators.spliteratorUnknownSize(new TraversalCursor<>(root, order).iterator(), Spliterator.ORDERED);
+        }
+        boolean sized = root instanceof SimpleBinaryTreeInterface.SizedTreeNode;
+        TreeSpliterator<T> result = new TreeSpliterator<>(order, sized, 8);
+        result.size = 0;
+        if (root != null) {
+            result.push(root, false);
+            result.size = sized ? subtreeSize(root) : Long.MAX_VALUE;
+        }
+        return result;
+    }
+
+    private static long subtreeSize(SimpleBinaryTreeInterface.TreeNode<?> node) {
+        return node == null ? 0 : ((SimpleBinaryTreeInterface.SizedTreeNode<?>) node).getSubtreeSize();
+    }
+
+    private void push(SimpleBinaryTreeInterface.TreeNode<T> node, boolean isSingle) {
+        if (node == null) {
+            return;
+        }
+        if (top == nodes.length) {
+            nodes = Arrays.copyOf(nodes, top * 2);
+            single = Arrays.copyOf(single, top * 2);
+        }
+        nodes[top] = node;
+        single[top++] = isSingle;
+    }
+
+    /**
+     * Замена поддерева (снятого с вершины стека) узлом и двумя поддеревьями в порядке обхода
+     */
+    private void expand(SimpleBinaryTreeInterface.TreeNode<T> node) {
+        // элементы кладутся в обратном порядке: первым будет выдан последний положенный
+        switch (order) {
+            case PRE_ORDER:
+                push(node.getRight(), false);
+                push(node.getLeft(), false);
+                push(node, true);
+                break;
+            case IN_ORDER:
+                push(node.getRight(), false);
+                push(node, true);
+                push(node.getLeft(), false);
+                break;
+            default:
+                push(node, true);
+                push(node.getRight(), false);
+                push(node.getLeft(), false);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (top > 0) {
+            SimpleBinaryTreeInterface.TreeNode<T> node = nodes[--top];
+            nodes[top] = null;
+            if (single[top]) {
+                if (sized) {
+                    size--;
+                }
+                action.accept(node.getValue());
+                return true;
+            }
+            expand(node);
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (tryAdvance(action)) {
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (top == 1 && !single[0]) {
+            SimpleBinaryTreeInterface.TreeNode<T> node = nodes[0];
+            nodes[0] = null;
+            top = 0;
+            expand(node);
+        }
+        if (top < 2) {
+            return null;
+        }
+        // начало обхода (верхние элементы стека) отдается новой части
+        int k = (top + 1) / 2;
+        TreeSpliterator<T> prefix = new TreeSpliterator<>(order, sized, k);
+        System.arraycopy(nodes, top - k, prefix.nodes, 0, k);
+        System.arraycopy(single, top - k, prefix.single, 0, k);
+        prefix.top = k;
+        Arrays.fill(nodes, top - k, top, null);
+        top -= k;
+        if (sized) {
+            long n = 0;
+            for (int i = 0; i < k; i++) {
+                n += prefix.single[i] ? 1 : subtreeSize(prefix.nodes[i]);
+            }
+            prefix.size = n;
+            size -= n;
+        } else {
+            // размер неизвестен: оценка делится пополам (как в Spliterators.spliteratorUnknownSize)
+            prefix.size = size / 2;
+            size -= prefix.size;
+        }
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return sized ? ORDERED | SIZED | SUBSIZED : ORDERED;
+    }
+}
@@ -0,0 +1,113 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * Итеративные обходы для посетителей SimpleBinaryTreeInterface: стек узлов и уровней
+ * хранится в массивах, поэтому глубина дерева не ограничена размером стека потока.
+ * В стек кладется только то, к чему придется вернуться (правые потомки, путь
+ * от корня), так что на сбалансированных деревьях обходы не медленнее рекурсивных.
+ */
+final class TreeWalks {
+
+    private TreeWalks() {
+    }
+
+    /**
+     * Стек узлов с уровнями
+     */
+    private static final class NodeStack<T> {
+        @SuppressWarnings("unchecked")
+        SimpleBinaryTreeInterface.TreeNode<T>[] nodes =
+                (SimpleBinaryTreeInterface.TreeNode<T>[]) new SimpleBinaryTreeInterface.TreeNode<?>[32];
+        int[] levels = new int[32];
+        int top = 0;
+
+        void push(SimpleBinaryTreeInterface.TreeNode<T> node, int level) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+                levels = Arrays.copyOf(levels, top * 2);
+            }
+            nodes[top] = node;
+            levels[top++] = level;
+        }
+    }
+
+    static <T> void preOrderNodes(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.NodeVisitor<T> visitor) {
+        NodeStack<T> stack = new NodeStack<>();
+        SimpleBinaryTreeInterface.TreeNode<T> node = root;
+        int level = 0;
+        while (node != null) {
+            visitor.visit(node, level);
+            SimpleBinaryTreeInterface.TreeNode<T> left = node.getLeft();
+            SimpleBinaryTreeInterface.TreeNode<T> right = node.getRight();
+            if (left != null) {
+                if (right != null) {
+                    stack.push(right, level + 1);
+                }
+                node = left;
+                level++;
+            } else if (right != null) {
+                node = right;
+                level++;
+            } else if (stack.top > 0) {
+                node = stack.nodes[--stack.top];
+                level = stack.levels[stack.top];
+            } else {
+                node = null;
+            }
+        }
+    }
+
+    static <T> void preOrder(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor) {
+        preOrderNodes(root, (node, level) -> visitor.visit(node.getValue(), level));
+    }
+
+    static <T> void inOrder(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor) {
+        NodeStack<T> stack = new NodeStack<>();
+        SimpleBinaryTreeInterface.TreeNode<T> node = root;
+        int level = 0;
+        while (true) {
+            for (; node != null; node = node.getLeft()) {
+                stack.push(node, level++);
+            }
+            if (stack.top == 0) {
+                return;
+            }
+            node = stack.nodes[--stack.top];
+            level = stack.levels[stack.top];
+            visitor.visit(node.getValue(), level);
+            node = node.getRight();
+            level++;
+        }
+    }
+
+    static <T> void postOrder(SimpleBinaryTreeInterface.TreeNode<T> root, SimpleBinaryTreeInterface.Visitor<T> visitor) {
+        // то, что правое поддерево узла уже начато, отмечается в стеке инвертированным уровнем
+        // (а не сравнением с последним посещенным узлом: в деревьях с общими поддеревьями,
+        // как HashConsedBinaryTree, левый и правый потомок могут совпадать)
+        NodeStack<T> stack = new NodeStack<>();
+        SimpleBinaryTreeInterface.TreeNode<T> node = root;
+        int level = 0;
+        while (true) {
+            for (; node != null; node = node.getLeft()) {
+                stack.push(node, level++);
+            }
+            if (stack.top == 0) {
+                return;
+            }
+            int i = stack.top - 1;
+            SimpleBinaryTreeInterface.TreeNode<T> top = stack.nodes[i];
+            int topLevel = stack.levels[i];
+            SimpleBinaryTreeInterface.TreeNode<T> right;
+            if (topLevel >= 0 && (right = top.getRight()) != null) {
+                stack.levels[i] = ~topLevel;
+                node = right;
+                level = topLevel + 1;
+            } else {
+                stack.top--;
+                visitor.visit(top.getValue(), topLevel >= 0 ? topLevel : ~topLevel);
+            }
+        }
+    }
+}
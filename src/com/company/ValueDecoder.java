@@ -0,0 +1,150 @@
+package com.company;
+
+import java.util.function.Function;
+
+/**
+ * Преобразование значения узла, записанного в символах s[from, to), в T.
+ * В отличие от Function&lt;String, T&gt; не требует создания промежуточной строки:
+ * значение читается прямо из символов источника (строки, буфера или байт файла).
+ *
+ * @param <T> Тип значения
+ */
+@FunctionalInterface
+public interface ValueDecoder<T> {
+
+    T decode(CharSequence s, int from, int to);
+
+    /**
+     * Декодер значений типа int (без промежуточных строк и упаковки)
+     */
+    @FunctionalInterface
+    interface IntDecoder extends ValueDecoder<Integer> {
+        int decodeInt(CharSequence s, int from, int to);
+
+        @Override
+        default Integer decode(CharSequence s, int from, int to) {
+            return decodeInt(s, from, to);
+        }
+    }
+
+    /**
+     * Декодер значений типа long (без промежуточных строк и упаковки)
+     */
+    @FunctionalInterface
+    interface LongDecoder extends ValueDecoder<Long> {
+        long decodeLong(CharSequence s, int from, int to);
+
+        @Override
+        default Long decode(CharSequence s, int from, int to) {
+            return decodeLong(s, from, to);
+        }
+    }
+
+    /**
+     * Декодер значений типа double (без промежуточных строк и упаковки)
+     */
+    @FunctionalInterface
+    interface DoubleDecoder extends ValueDecoder<Double> {
+        double decodeDouble(CharSequence s, int from, int to);
+
+        @Override
+        default Double decode(CharSequence s, int from, int to) {
+            return decodeDouble(s, from, to);
+        }
+    }
+
+    IntDecoder INT = (s, from, to) -> Integer.parseInt(s, from, to, 10);
+
+    LongDecoder LONG = (s, from, to) -> Long.parseLong(s, from, to, 10);
+
+    DoubleDecoder DOUBLE = Doubles::parse;
+
+    /**
+     * Декодер поверх обычной функции конвертации строки в T
+     * (для значений, для которых нет специализированного декодера)
+     * @param func Функция конвертации
+     * @param <T> Тип значения
+     * @return Декодер
+     */
+    static <T> ValueDecoder<T> fromFunction(Function<String, T> func) {
+        return (s, from, to) -> func.apply(s.subSequence(from, to).toString());
+    }
+
+    /**
+     * Быстрый разбор double без создания промежуточных строк
+     */
+    final class Doubles {
+        /**
+         * Степени 10, точно представимые в double
+         */
+        private static final double[] EXACT_POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private Doubles() {
+        }
+
+        /**
+         * Разбор double из символов s[from, to). Для типичных значений (не более 15
+         * значащих цифр и небольшой порядок) результат вычисляется точно без создания
+         * строки, в остальных случаях используется Double.parseDouble.
+         */
+        public static double parse(CharSequence s, int from, int to) {
+            int i = from;
+            boolean negative = false;
+            if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negative = s.charAt(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exp = 0;
+            boolean point = false;
+            boolean any = false;
+            for (; i < to; i++) {
+                char c = s.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    any = true;
+                    // ведущие нули не являются значащими цифрами
+                    if (mantissa != 0 || c != '0') {
+                        if (digits == 15) {
+                            return Double.parseDouble(s.subSequence(from, to).toString());
+                        }
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits++;
+                    }
+                    if (point) {
+                        exp--;
+                    }
+                } else if (c == '.' && !point) {
+                    point = true;
+                } else {
+                    break;
+                }
+            }
+            if (i < to && any && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+                i++;
+                boolean expNegative = false;
+                if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                    expNegative = s.charAt(i) == '-';
+                    i++;
+                }
+                int e = 0;
+                int expFrom = i;
+                for (; i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9' && e < 1000; i++) {
+                    e = e * 10 + (s.charAt(i) - '0');
+                }
+                if (i == expFrom) {
+                    i = -1;
+                }
+                exp += expNegative ? -e : e;
+            }
+            if (!any || i != to || exp < -22 || exp > 22) {
+                return Double.parseDouble(s.subSequence(from, to).toString());
+            }
+            double result = exp < 0 ? mantissa / EXACT_POWERS_OF_TEN[-exp] : mantissa * EXACT_POWERS_OF_TEN[exp];
+            return negative ? -result : result;
+        }
+    }
+}